@@ -0,0 +1,105 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import game.*;
+
+/**
+ * Throughput of the hot paths in {@code game} on a set of reference
+ * positions. Run through {@link RunBenchmarks} to get the allocation rate
+ * from the GC profiler as well.
+ *
+ * @author Jurgen Aliaj
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    /**
+     * the start position, kiwipete, a rook endgame, a position full of
+     * promotions and checks, and two quiet middlegames
+     */
+    @Param({
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+        "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10"
+    })
+    public String fen;
+
+    @Param("4")
+    public int depth;
+
+    private Game game;
+    private int move;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = new Game(fen);
+        move = game.getLegalMoves()[0];
+    }
+
+    /**
+     * Every search starts from an empty table, otherwise all but the first
+     * one would be answered from it. Kept apart from the shared state so
+     * the other benchmarks pay neither the per-invocation setup nor the
+     * allocation.
+     */
+    @State(Scope.Thread)
+    public static class FreshTable {
+
+        @Setup(Level.Invocation)
+        public void clear(GameBenchmark benchmark) {
+            benchmark.game.setTranspositionTable(new TranspositionTable(1));
+        }
+    }
+
+    @Benchmark
+    public int[] legalMoves() {
+        return game.getLegalMoves();
+    }
+
+    @Benchmark
+    public boolean inCheck() {
+        return game.inCheck(game.getCurrentTurn());
+    }
+
+    @Benchmark
+    public int evaluation() {
+        return game.evaluation();
+    }
+
+    @Benchmark
+    public void makeUnmake(Blackhole bh) {
+        long undo = game.makeMove(move);
+        bh.consume(game.key);
+        game.unmakeMove(move, undo);
+    }
+
+    @Benchmark
+    public int search(FreshTable table) {
+        Search search = new Search(game);
+        search.setThreads(1);
+        return search.search(depth).getMove();
+    }
+}
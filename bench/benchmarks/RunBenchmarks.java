@@ -0,0 +1,32 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks in this directory with the GC profiler, which adds the
+ * allocation rate per operation ({@code gc.alloc.rate.norm}) to each result.
+ * The benchmarks are compiled against {@code src} with jmh-core and
+ * jmh-generator-annprocess on the classpath, e.g.
+ *
+ * <pre>
+ * javac -cp jmh-core.jar:jmh-generator-annprocess.jar:jopt-simple.jar:commons-math3.jar \
+ *       -d out $(find src bench -name '*.java')
+ * java -cp out:jmh-core.jar:jopt-simple.jar:commons-math3.jar benchmarks.RunBenchmarks [regex]
+ * </pre>
+ *
+ * @author Jurgen Aliaj
+ */
+public class RunBenchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : GameBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
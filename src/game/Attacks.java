@@ -0,0 +1,240 @@
+package game;
+
+/**
+ * Attack tables, built once when the class is loaded and shared by all
+ * threads. Knights, kings and pawns attack the same squares wherever the
+ * other pieces stand, so their attacks are looked up by square.
+ *
+ * Sliding pieces use magic bitboards: the occupied squares that can block a
+ * rook or bishop on a square are multiplied by a magic number, and the top
+ * bits of the product index that square's part of one shared table. The
+ * magics were found once by trial with random numbers and are fixed here, so
+ * building the tables only has to fill in every blocker set (about 100k
+ * entries, a few milliseconds).
+ *
+ * Attacks are symmetric: a piece on {@code a} attacks {@code b} exactly when
+ * the same piece on {@code b} would attack {@code a}, except that pawns of
+ * one color attack like pawns of the other color seen from the target. This
+ * is what {@code Game.isSquareAttacked} uses to look outward from a square.
+ *
+ * @author Jurgen Aliaj
+ */
+public final class Attacks {
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    /**
+     * squares attacked by a pawn, indexed [color][square]
+     */
+    private static final long[][] PAWN = new long[2][64];
+
+    private static final long[] ROOK_MAGICS = {
+        0x0280008024104000L, 0x0040400010002000L, 0xC100110208200040L, 0x0480280080441000L,
+        0x0280040008008102L, 0x4D00084400810002L, 0x8080020000800100L, 0x0200020880304104L,
+        0x1C00800020804000L, 0x2024802000400084L, 0x0008802008100080L, 0x0012004012002008L,
+        0x0008800800040080L, 0x6108800400804200L, 0x2000808002000100L, 0x0002002415028042L,
+        0x8800218000824000L, 0x0200424010002000L, 0x0000808020001000L, 0x0C14210010000900L,
+        0x0400828008012400L, 0x0000808002000400L, 0x0A84240021420810L, 0x0008020002A4D401L,
+        0xA080004440002000L, 0x01C0048480402000L, 0x0100120200248240L, 0x0000100080080080L,
+        0xA128080080040080L, 0x0348020080800400L, 0x0000901400128841L, 0x0800B08600140841L,
+        0x1A10800041002100L, 0x2090402000401000L, 0x0118802000801000L, 0x0010801000800804L,
+        0x40B0810402800800L, 0x040A800400800200L, 0x4020020104001008L, 0x40802C8242000403L,
+        0x000C2188C0038000L, 0x3801008040010026L, 0x0810220080120041L, 0x0428001000088080L,
+        0x0818010011850008L, 0x0002001034060008L, 0x0809000200010004L, 0x03005400804A0001L,
+        0xA201008000204100L, 0x0100802000400080L, 0x1000809001200280L, 0x0014100840220200L,
+        0x0210104801000500L, 0x0084020080040080L, 0x0240089002014400L, 0x0600404084012200L,
+        0x3C02002240118502L, 0x0100201040010081L, 0xD080081220030041L, 0x0018900020592501L,
+        0x0202008820108402L, 0x3002000804100116L, 0x1000480211009004L, 0x04010000208E0041L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+        0x0140100082208224L, 0x0122089800888008L, 0x0144440092019200L, 0x1104410020380008L,
+        0x1DC20210110000B1L, 0x0003042016040800L, 0x0020440220110100L, 0x8001128801082000L,
+        0x00E01002080814A8L, 0x4000208A02060030L, 0x0000900400843081L, 0xC240142420800202L,
+        0x40C1021210200834L, 0x4000009010080010L, 0x5840442904022001L, 0x0000010402120240L,
+        0x084080300AA20C00L, 0x020400201400A221L, 0x00A0841001004008L, 0x0448040082004000L,
+        0x0404021220A00080L, 0x0A69000080600204L, 0x4081210080882081L, 0x0004810042009001L,
+        0x4960200810020240L, 0x100804C020041090L, 0x00602800101248C0L, 0x0001040088020820L,
+        0x1429001021004008L, 0x005C010138104201L, 0x0020841021142200L, 0x0124508022108400L,
+        0x8001084030881000L, 0x0009080880202102L, 0x0000842080100085L, 0x00400808000A0A00L,
+        0x01900182200A0200L, 0x0002004500021000L, 0x0001080082A11425L, 0x0711020828120100L,
+        0x0400887808004100L, 0x00084208200C4441L, 0x0042084402001002L, 0x4880005144010802L,
+        0x0800C01408200B02L, 0x2A2000D10240AE00L, 0x2020280160400103L, 0x4004008412440100L,
+        0x2011011010844600L, 0x1040841082101424L, 0x4424220128881610L, 0x0004004246081001L,
+        0x8405000803040218L, 0x0010084228820040L, 0x2040840404204A00L, 0x18B0042802704100L,
+        0x00828A0082200200L, 0x0030002404540400L, 0x1008400024020810L, 0x0000028010208811L,
+        0x400006012020C508L, 0x0009A04204480080L, 0x4100100448208421L, 0x0040198222014101L
+    };
+
+    /*
+     * for each square, the squares whose pieces can block the slider (its
+     * rays without the last square at the edge), how far to shift the
+     * product and where its entries start in SLIDING
+     */
+    private static final long[] ROOK_MASK = new long[64];
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final int[] ROOK_OFFSET = new int[64];
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final int[] BISHOP_OFFSET = new int[64];
+
+    /**
+     * the rook and bishop attacks for every square and blocker set
+     */
+    private static final long[] SLIDING = new long[102400 + 5248];
+
+    /*
+     * the row and column steps along a file, a rank and the two diagonals
+     */
+    private static final int[][] FILE = {{1, 0}, {-1, 0}};
+    private static final int[][] RANK = {{0, 1}, {0, -1}};
+    private static final int[][] DIAGONAL = {{1, 1}, {-1, -1}};
+    private static final int[][] ANTI_DIAGONAL = {{1, -1}, {-1, 1}};
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            long b = Bitboard.bit(sq);
+            KNIGHT[sq] = Bitboard.knightAttacks(b);
+            KING[sq] = Bitboard.kingAttacks(b);
+            PAWN[Game.WHITE][sq] = Bitboard.pawnAttacks(b, Game.WHITE);
+            PAWN[Game.BLACK][sq] = Bitboard.pawnAttacks(b, Game.BLACK);
+        }
+
+        int offset = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            ROOK_OFFSET[sq] = offset;
+            offset = fill(sq, FILE, RANK, ROOK_MAGICS[sq], offset, ROOK_MASK, ROOK_SHIFT);
+            BISHOP_OFFSET[sq] = offset;
+            offset = fill(sq, DIAGONAL, ANTI_DIAGONAL, BISHOP_MAGICS[sq], offset, BISHOP_MASK, BISHOP_SHIFT);
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * Fills the table entries of a slider on one square. The slider moves
+     * along two lines and the blockers on one line do not change its attacks
+     * along the other, so each line is only walked once per blocker set on
+     * it and the results are combined.
+     *
+     * @param sq the square of the slider
+     * @param a the steps along the first line
+     * @param b the steps along the second line
+     * @param magic the magic number for the square
+     * @param offset where the entries for the square start
+     * @param masks where to store the blocker mask of the square
+     * @param shifts where to store the shift of the square
+     * @return where the entries for the next square start
+     */
+    private static int fill(int sq, int[][] a, int[][] b, long magic, int offset, long[] masks, int[] shifts) {
+        // a piece on the last square of a ray cannot block anything behind it
+        long edges = ((Bitboard.RANK_1 | Bitboard.RANK_8) & ~(Bitboard.RANK_1 << (8 * (sq >>> 3))))
+                | ((Bitboard.FILE_A | Bitboard.FILE_H) & ~(Bitboard.FILE_A << (sq & 7)));
+        long maskA = slide(sq, 0L, a) & ~edges;
+        long maskB = slide(sq, 0L, b) & ~edges;
+        int bits = Long.bitCount(maskA | maskB);
+        masks[sq] = maskA | maskB;
+        shifts[sq] = 64 - bits;
+
+        // walk every subset of the masks (Carry-Rippler)
+        long[] blockersB = new long[1 << Long.bitCount(maskB)];
+        long[] attacksB = new long[blockersB.length];
+        long blockers = 0L;
+        int n = 0;
+        do {
+            blockersB[n] = blockers;
+            attacksB[n++] = slide(sq, blockers, b);
+            blockers = (blockers - maskB) & maskB;
+        } while (blockers != 0);
+        do {
+            long attacksA = slide(sq, blockers, a);
+            for (int i = 0; i < n; i++) {
+                SLIDING[offset + (int) (((blockers | blockersB[i]) * magic) >>> (64 - bits))] = attacksA | attacksB[i];
+            }
+            blockers = (blockers - maskA) & maskA;
+        } while (blockers != 0);
+        return offset + (1 << bits);
+    }
+
+    /**
+     * Walks the rays of a slider one square at a time, only used to fill the
+     * tables
+     *
+     * @param sq the square of the slider
+     * @param blockers the occupied squares
+     * @param directions the row and column steps of each ray
+     * @return the attacked squares, including the first blocker on each ray
+     */
+    private static long slide(int sq, long blockers, int[][] directions) {
+        long attacks = 0L;
+        for (int[] dir : directions) {
+            int row = (sq >>> 3) + dir[0];
+            int col = (sq & 7) + dir[1];
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                long b = 1L << (row * 8 + col);
+                attacks |= b;
+                if ((blockers & b) != 0) {
+                    break;
+                }
+                row += dir[0];
+                col += dir[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * @param sq the square of a knight
+     * @return the squares it attacks
+     */
+    public static long knight(int sq) {
+        return KNIGHT[sq];
+    }
+
+    /**
+     * @param sq the square of a king
+     * @return the squares it attacks
+     */
+    public static long king(int sq) {
+        return KING[sq];
+    }
+
+    /**
+     * @param color the color of the pawn
+     * @param sq the square of a pawn
+     * @return the squares it attacks, diagonally forward
+     */
+    public static long pawn(int color, int sq) {
+        return PAWN[color][sq];
+    }
+
+    /**
+     * @param sq the square of a bishop
+     * @param occupied all occupied squares
+     * @return the squares it attacks, including the first blocker on each diagonal
+     */
+    public static long bishop(int sq, long occupied) {
+        return SLIDING[BISHOP_OFFSET[sq]
+                + (int) (((occupied & BISHOP_MASK[sq]) * BISHOP_MAGICS[sq]) >>> BISHOP_SHIFT[sq])];
+    }
+
+    /**
+     * @param sq the square of a rook
+     * @param occupied all occupied squares
+     * @return the squares it attacks, including the first blocker on each line
+     */
+    public static long rook(int sq, long occupied) {
+        return SLIDING[ROOK_OFFSET[sq]
+                + (int) (((occupied & ROOK_MASK[sq]) * ROOK_MAGICS[sq]) >>> ROOK_SHIFT[sq])];
+    }
+
+    /**
+     * @param sq the square of a queen
+     * @param occupied all occupied squares
+     * @return the squares it attacks
+     */
+    public static long queen(int sq, long occupied) {
+        return bishop(sq, occupied) | rook(sq, occupied);
+    }
+}
@@ -13,7 +13,20 @@ public class Bishop extends Piece {
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
-	private double value = 3;
+	/**
+	 * value in centipawns on each square, indexed [color][square]. Good squares
+	 * get a bonus and bad squares a penalty.
+	 */
+	private static final int[][] VALUES = squareValues(300, new int[] {
+		-20, -10, -10, -10, -10, -10, -10, -20,
+		-10,   0,   0,   0,   0,   0,   0, -10,
+		-10,   0,   5,  10,  10,   5,   0, -10,
+		-10,   5,   5,  10,  10,   5,   5, -10,
+		-10,   0,  10,  10,  10,  10,   0, -10,
+		-10,  10,  10,  10,  10,  10,  10, -10,
+		-10,   5,   0,   0,   0,   0,   5, -10,
+		-20, -10, -10, -10, -10, -10, -10, -20
+	});
 	/**
      *
      * @param pos
@@ -37,43 +50,19 @@ public class Bishop extends Piece {
      * Checks that the move does not violate bishop rules
      */
     public boolean isValidCapture(Position newPos) {
-        int deltaX = (newPos.getCol() - curPos.getCol()), dirX = 0;
-        int deltaY = (newPos.getRow() - curPos.getRow()), dirY = 0;
-        if (deltaX != 0) {
-            dirX = deltaX / Math.abs(deltaX); // convert to unit vector to find direction of movement
-        }
-        if (deltaY != 0) {
-            dirY = deltaY / Math.abs(deltaY); //{...}
-        }
-        return newPos != curPos // must not click the same position
-                && Math.abs(deltaX) == Math.abs(deltaY) // must be in the same diagonal
-                && game.nothingInBetween(newPos, game.board[curPos.getRow() + dirY][curPos.getCol() + dirX], dirX, dirY) // not jumping
+        return (Attacks.bishop(Game.squareOf(curPos), game.occupied) & Game.bitOf(newPos)) != 0 // on a diagonal, not jumping
                 && (!newPos.isOccupied()
                 || newPos.getPiece().getColor() != getColor()); // the piece must not attack its own side
     }
 
-	public double getValue() {
-		return value + 0.1*pieceValueTable()[curPos.getRow()][curPos.getCol()];
+	@Override
+	public int getType() {
+		return Bitboard.BISHOP;
 	}
-	
+
 	@Override
-	protected double[][] pieceValueTable() {
-		double[][] table = {
-            { -2.0, -1.0, -1.0, -1.0, -1.0, -1.0, -1.0, -2.0},
-            { -1.0,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0, -1.0},
-            { -1.0,  0.0,  0.5,  1.0,  1.0,  0.5,  0.0, -1.0},
-            { -1.0,  0.5,  0.5,  1.0,  1.0,  0.5,  0.5, -1.0},
-            { -1.0,  0.0,  1.0,  1.0,  1.0,  1.0,  0.0, -1.0},
-            { -1.0,  1.0,  1.0,  1.0,  1.0,  1.0,  1.0, -1.0},
-            { -1.0,  0.5,  0.0,  0.0,  0.0,  0.0,  0.5, -1.0},
-            { -2.0, -1.0, -1.0, -1.0, -1.0, -1.0, -1.0, -2.0}
-        };
-		if (color == Game.WHITE) {
-			return table;
-		} else {
-			reverse(table);
-			return table;
-		}
+	public int getValue() {
+		return VALUES[color][Game.squareOf(curPos)];
 	}
 
 	@Override
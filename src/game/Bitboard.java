@@ -0,0 +1,167 @@
+package game;
+
+/**
+ * Helpers for the 64-bit board representation used by {@code Game}. Square
+ * {@code row * 8 + col} maps to bit {@code row * 8 + col}, so a1 is bit 0 and
+ * h8 is bit 63, the same orientation as {@code Game.board[row][col]}.
+ *
+ * @author Jurgen Aliaj
+ */
+public final class Bitboard {
+
+    /*
+     * Piece types, used to index the per-color bitboards in Game
+     */
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final long NOT_A = ~FILE_A;
+    private static final long NOT_H = ~FILE_H;
+    private static final long NOT_AB = ~(FILE_A | FILE_A << 1);
+    private static final long NOT_GH = ~(FILE_H | FILE_H >>> 1);
+
+    /*
+     * between and line for every pair of squares, indexed [a][b]. The move
+     * generator asks for them at every node, for pins and check evasions.
+     */
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                BETWEEN[a][b] = computeBetween(a, b);
+                LINE[a][b] = computeLine(a, b);
+            }
+        }
+    }
+
+    private Bitboard() {
+    }
+
+    /**
+     * @param row the row (0 is white's back rank)
+     * @param col the column (0 is the a-file)
+     * @return the square index of the given row and column
+     */
+    public static int square(int row, int col) {
+        return row * 8 + col;
+    }
+
+    /**
+     * @param sq a square index
+     * @return a bitboard with only the given square set
+     */
+    public static long bit(int sq) {
+        return 1L << sq;
+    }
+
+    /**
+     * Squares strictly between two squares on the same rank, file or diagonal
+     *
+     * @param a the first square
+     * @param b the second square
+     * @return the squares in between, or an empty bitboard if not aligned
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    private static long computeBetween(int a, int b) {
+        int rows = (b >>> 3) - (a >>> 3);
+        int cols = (b & 7) - (a & 7);
+        if (a == b || (rows != 0 && cols != 0 && Math.abs(rows) != Math.abs(cols))) {
+            return 0L;
+        }
+        int step = Integer.signum(rows) * 8 + Integer.signum(cols);
+        long result = 0L;
+        for (int sq = a + step; sq != b; sq += step) {
+            result |= bit(sq);
+        }
+        return result;
+    }
+
+    /**
+     * The whole rank, file or diagonal running through two squares
+     *
+     * @param a the first square
+     * @param b the second square
+     * @return the squares on the line from edge to edge, or an empty bitboard
+     * if not aligned
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    private static long computeLine(int a, int b) {
+        int rows = (b >>> 3) - (a >>> 3);
+        int cols = (b & 7) - (a & 7);
+        if (a == b || (rows != 0 && cols != 0 && Math.abs(rows) != Math.abs(cols))) {
+            return 0L;
+        }
+        rows = Integer.signum(rows);
+        cols = Integer.signum(cols);
+        long result = bit(a);
+        for (int dir = -1; dir <= 1; dir += 2) {
+            int row = (a >>> 3) + dir * rows;
+            int col = (a & 7) + dir * cols;
+            while (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                result |= bit(square(row, col));
+                row += dir * rows;
+                col += dir * cols;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Squares attacked by a set of pawns of the given color
+     *
+     * @param pawns the pawns
+     * @param color the color of the pawns (Game.BLACK or Game.WHITE)
+     * @return the attacked squares
+     */
+    public static long pawnAttacks(long pawns, int color) {
+        if (color == Game.WHITE) {
+            return ((pawns << 7) & NOT_H) | ((pawns << 9) & NOT_A);
+        }
+        return ((pawns >>> 9) & NOT_H) | ((pawns >>> 7) & NOT_A);
+    }
+
+    /**
+     * Squares attacked by a set of knights
+     *
+     * @param knights the knights
+     * @return the attacked squares
+     */
+    public static long knightAttacks(long knights) {
+        long l1 = (knights >>> 1) & NOT_H;
+        long l2 = (knights >>> 2) & NOT_GH;
+        long r1 = (knights << 1) & NOT_A;
+        long r2 = (knights << 2) & NOT_AB;
+        long h1 = l1 | r1;
+        long h2 = l2 | r2;
+        return (h1 << 16) | (h1 >>> 16) | (h2 << 8) | (h2 >>> 8);
+    }
+
+    /**
+     * Squares attacked by a set of kings
+     *
+     * @param kings the kings
+     * @return the attacked squares
+     */
+    public static long kingAttacks(long kings) {
+        long attacks = ((kings << 1) & NOT_A) | ((kings >>> 1) & NOT_H);
+        kings |= attacks;
+        return attacks | (kings << 8) | (kings >>> 8);
+    }
+}
@@ -2,10 +2,6 @@ package game;
 
 import java.io.*;
 import java.util.*;
-import javax.swing.JOptionPane;
-
-import misc.Pair;
-import misc.TreeNode;
 
 /**
  * This initializes the board and controls the flow of the game by switching
@@ -21,7 +17,72 @@ public class Game implements Serializable {
 	private static final long serialVersionUID = 1L;
 	public static final int BLACK = 1;
     public static final int WHITE = 0;
-    public ArrayList<Piece> pieces;
+    
+    /*
+     * Castling rights, shifted left by 2 for black
+     */
+    public static final int SHORT_CASTLE = 1;
+    public static final int LONG_CASTLE = 2;
+    
+    /**
+     * marks an empty square in {@code pieceAt}
+     */
+    public static final int EMPTY = -1;
+    
+    /**
+     * the FEN letter of each piece type, lower case
+     */
+    private static final String PIECE_LETTERS = "pnbrqk";
+    
+    /**
+     * castling rights kept after a piece moves from or to each square
+     */
+    private static final int[] CASTLING_MASK = new int[64];
+    static {
+        Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[4] = ~(SHORT_CASTLE | LONG_CASTLE) & 15;
+        CASTLING_MASK[7] = ~SHORT_CASTLE & 15;
+        CASTLING_MASK[0] = ~LONG_CASTLE & 15;
+        CASTLING_MASK[60] = ~((SHORT_CASTLE | LONG_CASTLE) << 2) & 15;
+        CASTLING_MASK[63] = ~(SHORT_CASTLE << 2) & 15;
+        CASTLING_MASK[56] = ~(LONG_CASTLE << 2) & 15;
+    }
+    
+    /**
+     * middlegame and endgame value in centipawns of a piece of each color and
+     * type on each square, indexed [color][type][square], negative for black.
+     * Taken from the pieces' own getValue and getEndgameValue, so that the
+     * search can evaluate positions that only exist on the bitboards.
+     */
+    private static final int[][][] MIDDLEGAME_VALUES = new int[2][6][64];
+    private static final int[][][] ENDGAME_VALUES = new int[2][6][64];
+    
+    /**
+     * how much each piece type counts towards the game phase, all pieces on
+     * the board add up to MAX_PHASE
+     */
+    private static final int[] PHASE_WEIGHT = {0, 1, 1, 2, 4, 0};
+    public static final int MAX_PHASE = 24;
+    static {
+        for (int color = 0; color < 2; color++) {
+            for (int sq = 0; sq < 64; sq++) {
+                Position pos = new Position(sq >>> 3, sq & 7);
+                Piece[] samples = {new Pawn(pos, color, null), new Knight(pos, color, null),
+                        new Bishop(pos, color, null), new Rook(pos, color, null),
+                        new Queen(pos, color, null), new King(pos, color, null)};
+                for (Piece p : samples) {
+                    int sign = color == WHITE ? 1 : -1;
+                    MIDDLEGAME_VALUES[color][p.getType()][sq] = sign * p.getValue();
+                    ENDGAME_VALUES[color][p.getType()][sq] = sign * p.getEndgameValue();
+                }
+            }
+        }
+    }
+    
+    public PieceList pieces;
+    /**
+     * pawns replaced by the piece they promoted to, in the order they promoted
+     */
     protected List<Piece> promotedPawns;
     public List<Piece> removed;
     
@@ -31,13 +92,73 @@ public class Game implements Serializable {
     public Position[][] board;
     private int currentTurn;
     public int totalTurns = 0;
+    /**
+     * plies since the last capture or pawn move, for the fifty move rule
+     */
+    public int halfmoveClock = 0;
+    
+    /**
+     * one bitboard per color and piece type, indexed [color][Bitboard.PAWN..KING].
+     * These are the real state of the game, {@code board} and {@code pieces}
+     * are kept in step with them for the user interface.
+     */
+    public transient long[][] pieceBB;
+    /**
+     * all squares occupied by each color
+     */
+    public transient long[] colorBB;
+    /**
+     * all occupied squares
+     */
+    public transient long occupied;
+    /**
+     * the piece type on each square, or EMPTY
+     */
+    public transient int[] pieceAt;
+    /**
+     * castling rights still available, see SHORT_CASTLE and LONG_CASTLE
+     */
+    public transient int castling;
+    /**
+     * the square behind a pawn that has just moved two squares, -1 if none
+     */
+    public transient int epSquare;
+    /**
+     * Zobrist key of the position, kept up to date by every move
+     */
+    public transient long key;
+    /**
+     * Zobrist key of the pawns alone, for the pawn hash table
+     */
+    public transient long pawnKey;
+    /**
+     * material and piece-square totals in centipawns from white's point of
+     * view, as if in the middlegame and as if in the endgame. Kept up to date
+     * by every move, see {@code evaluation}.
+     */
+    public transient int middlegame;
+    public transient int endgame;
+    /**
+     * the sum of PHASE_WEIGHT over the pieces on the board, MAX_PHASE at the
+     * start of the game and 0 with only kings and pawns left
+     */
+    public transient int phase;
+    
+    /*
+     * Moves played through nextTurn, so that prevTurn can take them back
+     */
+    private transient int[] moveHistory;
+    private transient long[] undoHistory;
+    private transient int historyCount;
+    private transient TranspositionTable transpositionTable;
+    private transient PawnHashTable pawnHashTable;
 
     /**
      * Creates a new instance of the Game class
      */
     public Game() {
         //initializes the variables
-        pieces = new ArrayList<>();
+        pieces = new PieceList();
         removed = new ArrayList<>();
         promotedPawns = new ArrayList<>();
         board = new Position[8][8];
@@ -74,6 +195,475 @@ public class Game implements Serializable {
             }
         }
         currentTurn = Game.WHITE; // white starts
+        rebuildBitboards();
+    }
+    
+    /**
+     * Creates a game starting from a position given in Forsyth-Edwards Notation
+     *
+     * @param fen the position
+     * @throws IllegalArgumentException if the position cannot be read
+     */
+    public Game(String fen) {
+        this();
+        setFen(fen);
+    }
+    
+    /**
+     * Replaces the position with one given in Forsyth-Edwards Notation: the
+     * pieces, side to move, castling rights, en passant square and the
+     * halfmove and fullmove counters. The last two fields may be left out.
+     * The move history is cleared, the hash tables are kept.
+     *
+     * @param fen the position
+     * @throws IllegalArgumentException if the position cannot be read or has
+     * a pawn on the first or last rank, in which case the game is left as it was
+     */
+    public void setFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("FEN needs at least 4 fields: " + fen);
+        }
+        
+        // read everything before touching the board
+        int[] types = new int[64];
+        int[] colors = new int[64];
+        Arrays.fill(types, EMPTY);
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8) {
+            throw new IllegalArgumentException("FEN needs 8 ranks: " + fen);
+        }
+        int[] kings = new int[2];
+        for (int r = 0; r < 8; r++) {
+            int row = 7 - r;
+            int col = 0;
+            for (char c : rows[r].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                    continue;
+                }
+                int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                if (type < 0 || col > 7) {
+                    throw new IllegalArgumentException("bad rank " + rows[r] + " in FEN: " + fen);
+                }
+                if (type == Bitboard.PAWN && (row == 0 || row == 7)) {
+                    throw new IllegalArgumentException("pawn on the first or last rank in FEN: " + fen);
+                }
+                int sq = Bitboard.square(row, col++);
+                types[sq] = type;
+                colors[sq] = Character.isUpperCase(c) ? WHITE : BLACK;
+                if (type == Bitboard.KING) {
+                    kings[colors[sq]]++;
+                }
+            }
+            if (col != 8) {
+                throw new IllegalArgumentException("bad rank " + rows[r] + " in FEN: " + fen);
+            }
+        }
+        if (kings[WHITE] != 1 || kings[BLACK] != 1) {
+            throw new IllegalArgumentException("FEN needs one king of each color: " + fen);
+        }
+        
+        int turn;
+        if (fields[1].equals("w")) {
+            turn = WHITE;
+        } else if (fields[1].equals("b")) {
+            turn = BLACK;
+        } else {
+            throw new IllegalArgumentException("bad side to move in FEN: " + fen);
+        }
+        
+        String rights = fields[2];
+        if (!rights.matches("-|K?Q?k?q?")) {
+            throw new IllegalArgumentException("bad castling rights in FEN: " + fen);
+        }
+        
+        // the pawn that has just moved two squares stands in front of the en passant square
+        int pushed = -1;
+        int ep = -1;
+        if (!fields[3].equals("-")) {
+            ep = Move.parseSquare(fields[3]);
+            pushed = turn == WHITE ? ep - 8 : ep + 8;
+            if (ep < 0 || (ep >>> 3) != (turn == WHITE ? 5 : 2)
+                    || types[pushed] != Bitboard.PAWN || colors[pushed] == turn) {
+                throw new IllegalArgumentException("bad en passant square in FEN: " + fen);
+            }
+        }
+        
+        int halfmoves;
+        int fullmoves;
+        try {
+            halfmoves = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+            fullmoves = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad move counters in FEN: " + fen, e);
+        }
+        if (halfmoves < 0 || fullmoves < 1) {
+            throw new IllegalArgumentException("bad move counters in FEN: " + fen);
+        }
+        
+        // now set up the board and pieces, which the bitboards are built from
+        pieces = new PieceList();
+        removed = new ArrayList<>();
+        promotedPawns = new ArrayList<>();
+        currentTurn = turn;
+        totalTurns = 2 * (fullmoves - 1) + turn;
+        halfmoveClock = halfmoves;
+        for (int sq = 0; sq < 64; sq++) {
+            Position pos = positionOf(sq);
+            Piece p = types[sq] == EMPTY ? null : createPiece(types[sq], colors[sq], pos);
+            pos.setPiece(p);
+            if (p != null) {
+                pieces.add(p);
+                // the view only allows a double step from the starting rank before the pawn has moved
+                if (p instanceof Pawn && (sq >>> 3) != (p.getColor() == WHITE ? 1 : 6)) {
+                    p.nMoves = 1;
+                }
+            }
+        }
+        if (pushed >= 0) {
+            ((Pawn) positionOf(pushed).getPiece()).movedTwo = totalTurns;
+        }
+        // castling rights come from whether the king and rooks have moved
+        for (int color = 0; color < 2; color++) {
+            int row = color * 7;
+            char kingSide = color == WHITE ? 'K' : 'k';
+            char queenSide = color == WHITE ? 'Q' : 'q';
+            if (rights.indexOf(kingSide) < 0 && rights.indexOf(queenSide) < 0 && board[row][4].isOccupied()) {
+                board[row][4].getPiece().nMoves = 1;
+            }
+            if (rights.indexOf(kingSide) < 0 && board[row][7].isOccupied()) {
+                board[row][7].getPiece().nMoves = 1;
+            }
+            if (rights.indexOf(queenSide) < 0 && board[row][0].isOccupied()) {
+                board[row][0].getPiece().nMoves = 1;
+            }
+        }
+        rebuildBitboards();
+        setRights(castling, ep); // the field is authoritative, the board only approximates it
+    }
+    
+    /**
+     * Writes the position in Forsyth-Edwards Notation, see {@code setFen}
+     *
+     * @return the position
+     */
+    public String getFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int sq = Bitboard.square(row, col);
+                if (pieceAt[sq] == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char c = PIECE_LETTERS.charAt(pieceAt[sq]);
+                fen.append((colorBB[WHITE] & Bitboard.bit(sq)) != 0 ? Character.toUpperCase(c) : c);
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(currentTurn == WHITE ? " w " : " b ");
+        if (castling == 0) {
+            fen.append('-');
+        } else {
+            String letters = "KQkq";
+            for (int i = 0; i < 4; i++) {
+                if ((castling & 1 << i) != 0) {
+                    fen.append(letters.charAt(i));
+                }
+            }
+        }
+        fen.append(' ').append(epSquare < 0 ? "-" : Move.squareName(epSquare));
+        fen.append(' ').append(halfmoveClock);
+        fen.append(' ').append(totalTurns / 2 + 1);
+        return fen.toString();
+    }
+    
+    /**
+     * Recomputes the bitboards, castling rights and en passant square from the
+     * pieces on {@code board}. Must be called after setting up a position by hand.
+     */
+    public void rebuildBitboards() {
+        pieceBB = new long[2][6];
+        colorBB = new long[2];
+        occupied = 0L;
+        middlegame = 0;
+        endgame = 0;
+        phase = 0;
+        pawnKey = 0L;
+        pieceAt = new int[64];
+        Arrays.fill(pieceAt, EMPTY);
+        castling = 0;
+        epSquare = -1;
+        moveHistory = new int[64];
+        undoHistory = new long[64];
+        historyCount = 0;
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                if (board[i][j].isOccupied()) {
+                    Piece p = board[i][j].getPiece();
+                    addPiece(p.getColor(), p.getType(), Bitboard.square(i, j));
+                    if (p instanceof Pawn && ((Pawn) p).movedTwo == totalTurns
+                            && i == (p.getColor() == WHITE ? 3 : 4)) {
+                        epSquare = Bitboard.square(p.getColor() == WHITE ? i - 1 : i + 1, j);
+                    }
+                }
+            }
+        }
+        for (int color = 0; color < 2; color++) {
+            Piece king = board[color * 7][4].getPiece();
+            if (!(king instanceof King) || king.getColor() != color || king.nMoves != 0) {
+                continue;
+            }
+            Piece rook = board[color * 7][7].getPiece();
+            if (rook instanceof Rook && rook.getColor() == color && rook.nMoves == 0) {
+                castling |= SHORT_CASTLE << (2 * color);
+            }
+            rook = board[color * 7][0].getPiece();
+            if (rook instanceof Rook && rook.getColor() == color && rook.nMoves == 0) {
+                castling |= LONG_CASTLE << (2 * color);
+            }
+        }
+        key = Zobrist.compute(this);
+    }
+    
+    /**
+     * Puts a piece on an empty square
+     */
+    private void addPiece(int color, int type, int sq) {
+        long b = Bitboard.bit(sq);
+        pieceBB[color][type] |= b;
+        colorBB[color] |= b;
+        occupied |= b;
+        pieceAt[sq] = type;
+        key ^= Zobrist.PIECES[color][type][sq];
+        middlegame += MIDDLEGAME_VALUES[color][type][sq];
+        endgame += ENDGAME_VALUES[color][type][sq];
+        phase += PHASE_WEIGHT[type];
+        if (type == Bitboard.PAWN) {
+            pawnKey ^= Zobrist.PIECES[color][type][sq];
+        }
+    }
+    
+    /**
+     * Takes a piece off its square
+     */
+    private void removePiece(int color, int type, int sq) {
+        long b = ~Bitboard.bit(sq);
+        pieceBB[color][type] &= b;
+        colorBB[color] &= b;
+        occupied &= b;
+        pieceAt[sq] = EMPTY;
+        key ^= Zobrist.PIECES[color][type][sq];
+        middlegame -= MIDDLEGAME_VALUES[color][type][sq];
+        endgame -= ENDGAME_VALUES[color][type][sq];
+        phase -= PHASE_WEIGHT[type];
+        if (type == Bitboard.PAWN) {
+            pawnKey ^= Zobrist.PIECES[color][type][sq];
+        }
+    }
+    
+    /**
+     * Moves a piece to an empty square
+     */
+    private void movePiece(int color, int type, int from, int to) {
+        long b = Bitboard.bit(from) | Bitboard.bit(to);
+        pieceBB[color][type] ^= b;
+        colorBB[color] ^= b;
+        occupied ^= b;
+        pieceAt[from] = EMPTY;
+        pieceAt[to] = type;
+        key ^= Zobrist.PIECES[color][type][from] ^ Zobrist.PIECES[color][type][to];
+        middlegame += MIDDLEGAME_VALUES[color][type][to] - MIDDLEGAME_VALUES[color][type][from];
+        endgame += ENDGAME_VALUES[color][type][to] - ENDGAME_VALUES[color][type][from];
+        if (type == Bitboard.PAWN) {
+            pawnKey ^= Zobrist.PIECES[color][type][from] ^ Zobrist.PIECES[color][type][to];
+        }
+    }
+    
+    /**
+     * Replaces the castling rights and en passant square, updating the key
+     */
+    private void setRights(int newCastling, int newEpSquare) {
+        key ^= Zobrist.CASTLING[castling] ^ Zobrist.CASTLING[newCastling];
+        if (epSquare >= 0) {
+            key ^= Zobrist.EN_PASSANT[epSquare & 7];
+        }
+        if (newEpSquare >= 0) {
+            key ^= Zobrist.EN_PASSANT[newEpSquare & 7];
+        }
+        castling = newCastling;
+        epSquare = newEpSquare;
+    }
+    
+    /**
+     * Checks the incremental key and material against a full recomputation,
+     * see {@code Zobrist.debug}
+     */
+    private void verifyKey() {
+        if (key != Zobrist.compute(this) || pawnKey != Zobrist.computePawnKey(this)) {
+            throw new IllegalStateException("Zobrist key out of sync after " + totalTurns + " turns");
+        }
+        if (middlegame != computeMaterial(MIDDLEGAME_VALUES) || endgame != computeMaterial(ENDGAME_VALUES)) {
+            throw new IllegalStateException("material out of sync after " + totalTurns + " turns");
+        }
+    }
+    
+    /**
+     * Plays a move on the bitboards only, {@code board} and {@code pieces} are
+     * left as they are. The move must come from {@code MoveGenerator}.
+     *
+     * @param move the encoded move
+     * @return the undo record to pass to {@code unmakeMove}
+     */
+    public long makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int us = currentTurn;
+        int type = pieceAt[from];
+        int captured = EMPTY;
+        long undo = castling | (long) (epSquare + 1) << 4 | (long) halfmoveClock << 16;
+        
+        if (Move.isEnPassant(move)) {
+            captured = Bitboard.PAWN;
+            removePiece(1 - us, captured, us == WHITE ? to - 8 : to + 8);
+        } else if (pieceAt[to] != EMPTY) {
+            captured = pieceAt[to];
+            removePiece(1 - us, captured, to);
+        }
+        movePiece(us, type, from, to);
+        
+        if (Move.promotion(move) != 0) {
+            removePiece(us, Bitboard.PAWN, to);
+            addPiece(us, Move.promotion(move), to);
+        } else if (Move.isCastling(move)) {
+            if (to > from) {
+                movePiece(us, Bitboard.ROOK, from + 3, from + 1);
+            } else {
+                movePiece(us, Bitboard.ROOK, from - 4, from - 1);
+            }
+        }
+        
+        halfmoveClock = type == Bitboard.PAWN || captured != EMPTY ? 0 : halfmoveClock + 1;
+        setRights(castling & CASTLING_MASK[from] & CASTLING_MASK[to],
+                Move.isDoublePush(move) ? (from + to) / 2 : -1);
+        currentTurn = 1 - us;
+        totalTurns++;
+        key ^= Zobrist.SIDE;
+        if (Zobrist.debug) {
+            verifyKey();
+        }
+        return undo | (long) (captured + 1) << 11;
+    }
+    
+    /**
+     * Takes back a move played with {@code makeMove}
+     *
+     * @param move the encoded move
+     * @param undo the undo record returned by {@code makeMove}
+     */
+    public void unmakeMove(int move, long undo) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int us = 1 - currentTurn;
+        int captured = (int) (undo >>> 11 & 7) - 1;
+        
+        currentTurn = us;
+        totalTurns--;
+        halfmoveClock = (int) (undo >>> 16);
+        key ^= Zobrist.SIDE;
+        setRights((int) (undo & 15), (int) (undo >>> 4 & 127) - 1);
+        
+        if (Move.promotion(move) != 0) {
+            removePiece(us, Move.promotion(move), to);
+            addPiece(us, Bitboard.PAWN, to);
+        } else if (Move.isCastling(move)) {
+            if (to > from) {
+                movePiece(us, Bitboard.ROOK, from + 1, from + 3);
+            } else {
+                movePiece(us, Bitboard.ROOK, from - 1, from - 4);
+            }
+        }
+        movePiece(us, pieceAt[to], to, from);
+        
+        if (Move.isEnPassant(move)) {
+            addPiece(1 - us, Bitboard.PAWN, us == WHITE ? to - 8 : to + 8);
+        } else if (captured != EMPTY) {
+            addPiece(1 - us, captured, to);
+        }
+        if (Zobrist.debug) {
+            verifyKey();
+        }
+    }
+    
+    /**
+     * Passes the turn without moving, for the search's null move pruning.
+     * Must not be played while in check.
+     *
+     * @return the undo record to pass to {@code unmakeNullMove}
+     */
+    public long makeNullMove() {
+        long undo = castling | (long) (epSquare + 1) << 4 | (long) halfmoveClock << 16;
+        setRights(castling, -1);
+        currentTurn = 1 - currentTurn;
+        totalTurns++;
+        halfmoveClock++;
+        key ^= Zobrist.SIDE;
+        return undo;
+    }
+    
+    /**
+     * Takes back a move played with {@code makeNullMove}
+     *
+     * @param undo the undo record returned by {@code makeNullMove}
+     */
+    public void unmakeNullMove(long undo) {
+        currentTurn = 1 - currentTurn;
+        totalTurns--;
+        halfmoveClock = (int) (undo >>> 16);
+        key ^= Zobrist.SIDE;
+        setRights((int) (undo & 15), (int) (undo >>> 4 & 127) - 1);
+    }
+    
+    /**
+     * The bitboards are not serialized, rebuild them from the board
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        rebuildBitboards();
+    }
+    
+    /**
+     * Makes an independent copy of the game, board and pieces included, e.g.
+     * for a search thread to play moves on. The move history and the
+     * transposition table are not copied.
+     * 
+     * @return the copy
+     */
+    public Game copy() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(this);
+            out.close();
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            Game copy = (Game) in.readObject();
+            // the engine state is authoritative, the board only approximates it
+            copy.setRights(castling, epSquare);
+            return copy;
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("could not copy the game", e);
+        }
     }
     
     public String getTotalMoves() {
@@ -90,50 +680,56 @@ public class Game implements Serializable {
      * @return whether or not our king is in check
      */
     public boolean inCheck(int color) {
-    	Piece p = null;
-        for (int i = 0; i < pieces.size(); i++) {
-        	p = pieces.get(i);
-            if (p.getColor() != color && p.isValidCapture(getKingPosition(color))) {
-                return true;
-            }
-        }
-        return false;
+    	long king = pieceBB[color][Bitboard.KING];
+    	return king != 0 && isSquareAttacked(Long.numberOfTrailingZeros(king), 1 - color);
     }
 
     /**
-     * Return the location of the king
+     * Whether any piece of one color attacks a square. Looks outward from the
+     * square as each kind of piece and stops at the first attacker found.
      *
-     * @return the location of our king
+     * @param sq the square
+     * @param byColor the color of the attacking pieces
+     * @return true if the square is attacked
      */
-    public Position getKingPosition(int color) {
-        Piece p = null;
-    	Position kingPos = null;
-        for (int i = 0; i < pieces.size(); i++) {
-        	p = pieces.get(i);
-            if (p.getColor() == color && p instanceof King) {
-                return p.getPosition();
-            }
-        }
-        return kingPos;
+    public boolean isSquareAttacked(int sq, int byColor) {
+    	long[] p = pieceBB[byColor];
+    	return (Attacks.pawn(1 - byColor, sq) & p[Bitboard.PAWN]) != 0
+    			|| (Attacks.knight(sq) & p[Bitboard.KNIGHT]) != 0
+    			|| (Attacks.king(sq) & p[Bitboard.KING]) != 0
+    			|| (Attacks.bishop(sq, occupied) & (p[Bitboard.BISHOP] | p[Bitboard.QUEEN])) != 0
+    			|| (Attacks.rook(sq, occupied) & (p[Bitboard.ROOK] | p[Bitboard.QUEEN])) != 0;
     }
 
     /**
-     * Check to see if two positions have nothing in between them to prevent
-     * pieces jumping over each other (recursive algorithm)
+     * Finds all pieces of one color attacking a square
      *
-     * @param newPos the new position
-     * @param current the current position
-     * @param dirX the horizontal direction (magnitude 1)
-     * @param dirY the vertical direction (magnitude 1)
-     * @return whether or not there is nothing in between the two positions
+     * @param sq the square to look outward from
+     * @param byColor the color of the attacking pieces
+     * @param occ the occupied squares to use for sliding pieces
+     * @return the attacking pieces
      */
-    public boolean nothingInBetween(Position newPos, Position current, int dirX, int dirY) {
-        if (current == newPos || current.getCol() + dirX == -1 || current.getRow() + dirY == -1
-                || current.getCol() + dirX == 8 || current.getRow() + dirY == 8) {
-            return true;
-        }
-        return !current.isOccupied() //recursively check if the next position is also empty
-                && nothingInBetween(newPos, board[current.getRow() + dirY][current.getCol() + dirX], dirX, dirY);
+    public long attackersTo(int sq, int byColor, long occ) {
+    	long[] p = pieceBB[byColor];
+    	return (Attacks.pawn(1 - byColor, sq) & p[Bitboard.PAWN])
+    			| (Attacks.knight(sq) & p[Bitboard.KNIGHT])
+    			| (Attacks.king(sq) & p[Bitboard.KING])
+    			| (Attacks.bishop(sq, occ) & (p[Bitboard.BISHOP] | p[Bitboard.QUEEN]))
+    			| (Attacks.rook(sq, occ) & (p[Bitboard.ROOK] | p[Bitboard.QUEEN]));
+    }
+
+    /**
+     * Return the location of the king
+     *
+     * @return the location of our king
+     */
+    public Position getKingPosition(int color) {
+    	long king = pieceBB[color][Bitboard.KING];
+    	if (king == 0) {
+    		return null;
+    	}
+    	int sq = Long.numberOfTrailingZeros(king);
+    	return board[sq >>> 3][sq & 7];
     }
 
     /**
@@ -142,41 +738,103 @@ public class Game implements Serializable {
      * @return whether or not there are no more possible moves
      */
     public boolean isUnplayable(int color) {
-    	@SuppressWarnings("unchecked")
-		ArrayList<Piece> piecesCopy = (ArrayList<Piece>) pieces.clone();
-    	Piece p = null;
-        for (int i = 0; i < pieces.size(); i++) {
-        	p = piecesCopy.get(i);
-        	if (p.getColor() != color) {
-            	continue;
-            }
-        	if (!p.getLegalMoves().isEmpty()) {
-        		return false;
-        	}
-        }
-        return true;
+        return getLegalMoves(color).length == 0;
     }
     
     /**
-     * Get all possible moves
+     * Get all legal moves for the side to move
      *
      * @return list of legal moves
      */
-	@SuppressWarnings("unchecked")
-	public ArrayList<Pair<Position,Position>> getLegalMoves() {
-		ArrayList<Piece> piecesCopy = (ArrayList<Piece>) pieces.clone();
-    	Piece p = null;
-    	ArrayList<Pair<Position,Position>> legalMoves = new ArrayList<Pair<Position,Position>>();
-        for (int i = 0; i < pieces.size(); i++) {
-        	p = piecesCopy.get(i);
-        	if (p.getColor() != currentTurn) {
-            	continue;
-            }
-        	// p.getLegalMoves() could be null which leads to problems
-        	Optional.ofNullable(p.getLegalMoves()).ifPresent(legalMoves::addAll);
-        }
-        return legalMoves;
+	public int[] getLegalMoves() {
+		return getLegalMoves(currentTurn);
+	}
+	
+    /**
+     * Get all legal moves for one side
+     *
+     * @param color the side to generate moves for
+     * @return list of legal moves
+     */
+	public int[] getLegalMoves(int color) {
+		boolean otherSide = color != currentTurn;
+		int savedEpSquare = epSquare;
+		if (otherSide) { // makeMove always moves the side to move
+			currentTurn = color;
+			key ^= Zobrist.SIDE;
+			// the en passant square belongs to the side to move, not to us
+			setRights(castling, -1);
+		}
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int n = MoveGenerator.generate(this, color, moves);
+		int legal = 0;
+		for (int i = 0; i < n; i++) {
+			if (!MoveGenerator.needsCheck(this, moves[i])) {
+				moves[legal++] = moves[i];
+				continue;
+			}
+			long undo = makeMove(moves[i]);
+			boolean exposed = inCheck(color);
+			unmakeMove(moves[i], undo);
+			if (!exposed) {
+				moves[legal++] = moves[i];
+			}
+		}
+		if (otherSide) {
+			setRights(castling, savedEpSquare);
+			currentTurn = 1 - color;
+			key ^= Zobrist.SIDE;
+		}
+        return Arrays.copyOf(moves, legal);
     }
+	
+	/**
+	 * Finds the legal move of the piece on one position to another
+	 * 
+	 * @param from the position of the piece to move
+	 * @param to the position to move to
+	 * @param promotion the piece type to promote to if this is a pawn reaching the last rank
+	 * @return the encoded move, or {@code Move.NONE} if the move is not legal
+	 */
+	public int findMove(Position from, Position to, int promotion) {
+		if (from.isEmpty()) {
+			return Move.NONE;
+		}
+		int f = squareOf(from);
+		int t = squareOf(to);
+		for (int move : getLegalMoves(from.getPiece().getColor())) {
+			if (Move.from(move) == f && Move.to(move) == t
+					&& (Move.promotion(move) == 0 || Move.promotion(move) == promotion)) {
+				return move;
+			}
+		}
+		return Move.NONE;
+	}
+	
+	/**
+	 * @param pos a position on the board
+	 * @return the square index of that position
+	 */
+	public static int squareOf(Position pos) {
+		return Bitboard.square(pos.getRow(), pos.getCol());
+	}
+	
+	/**
+	 * @param pos a position on the board
+	 * @return the bitboard with only that position set
+	 */
+	public static long bitOf(Position pos) {
+		return Bitboard.bit(squareOf(pos));
+	}
+	
+	/**
+	 * @param sq a square index
+	 * @return the position on the board for that square
+	 */
+	public Position positionOf(int sq) {
+		return board[sq >>> 3][sq & 7];
+	}
+	
     
     /**
      * Check for checkmate
@@ -203,13 +861,10 @@ public class Game implements Serializable {
      * @return a draw if there is insufficient material (boolean)
      */
     public boolean isDraw() {
-    	Piece p = null;
-        boolean insufficient = false;
-        for (int i = 0; i < pieces.size(); i++) {
-        	p = pieces.get(i);
-            insufficient = p instanceof Knight || p instanceof Bishop;
-        }
-        return pieces.size() == 2 || (pieces.size() == 3 && insufficient);
+    	int count = Long.bitCount(occupied);
+    	long minors = pieceBB[WHITE][Bitboard.KNIGHT] | pieceBB[WHITE][Bitboard.BISHOP]
+    			| pieceBB[BLACK][Bitboard.KNIGHT] | pieceBB[BLACK][Bitboard.BISHOP];
+        return count == 2 || (count == 3 && minors != 0);
     }
     
     /**
@@ -217,181 +872,111 @@ public class Game implements Serializable {
      *
      * @param piece the piece to move
      * @param newPos the new position to move to
+     * @param promotion the piece type a pawn reaching the last rank becomes,
+     * e.g. {@code Bitboard.QUEEN}; ignored for other moves
      * @return the piece capture (null otherwise)
      */
-    public Pair<Piece,ArrayList<Boolean>> nextTurn(Piece piece, Position newPos) {
-    	Pair<Piece,Boolean> moveData = null;
-    	Piece captured = null;
-    	Boolean enPassant = false;
-    	Boolean twoUp = false;
-    	Boolean promotion = false;
-    	Boolean shortCastle = false;
-    	Boolean longCastle = false;
-    	
-        Position oldPos = piece.getPosition(); // save the old position
-        twoUp = piece instanceof Pawn && ((Pawn) piece).twoUp(newPos); // whether or not a pawn has moved up
-        moveData = piece.move(newPos); // move the piece and save any captured piece
-        captured = moveData.getLeft();
-        enPassant = moveData.getRight();
-            
-        //if the pawn has reached the other side of the board, promote it.
-        if (piece instanceof Pawn && (newPos.getRow() == 7 || newPos.getRow() == 0)) {
-        	promotion = true;
-            int tempColor = piece.getColor();
-            pieces.remove(piece); // remove the pawn
-            promotedPawns.add(piece); // need to get this back at some point for backtracking
-            piece.curPos.setPiece(null);
-            
-            //possible pieces to promote to
-            Object[] possibilities = {"Queen", "Rook", "Bishop", "Knight"};
-            //show an option dialogue of options and save the user's choice
-            String s = (String) JOptionPane.showInputDialog(
-                    null,
-                    "Which piece would you like?",
-                    "Pawn Promotion",
-                    JOptionPane.PLAIN_MESSAGE,
-                    null,
-                    possibilities,
-                    "chess");
-            pieces.remove(piece); // remove the pawn
-            promotedPawns.add(piece); // need to save this for backtracking
-            piece.curPos.setPiece(null);
-            //based on user input set the piece to the selected piece
-            if (s.equals(possibilities[0])) {
-                newPos.setPiece(new Queen(newPos, tempColor, this));
-            } else if (s.equals(possibilities[1])) {
-                newPos.setPiece(new Rook(newPos, tempColor, this));
-            } else if (s.equals(possibilities[2])) {
-                newPos.setPiece(new Bishop(newPos, tempColor, this));
-            } else if (s.equals(possibilities[3])) {
-                newPos.setPiece(new Knight(newPos, tempColor, this));
-            }
-            
-            pieces.add(newPos.getPiece()); //add to the list of new pieces
-        } else if (twoUp) {//if the pawn has moved up two spots, the pawn can be taken via en passant
-            ((Pawn) piece).movedTwo = totalTurns+1;
-            //if the king moves two over to the right (castling)
-        } else if (piece instanceof King && oldPos.getCol() + 2 == newPos.getCol()
-                && board[oldPos.getRow()][7].isOccupied()) {
-            shortCastle = true;
-        	board[oldPos.getRow()][7].getPiece().move(board[oldPos.getRow()][5]);
-            //if the king moves two over to the left (castling)
-        } else if (piece instanceof King && oldPos.getCol() - 2 == newPos.getCol()
-                && board[oldPos.getRow()][0].isOccupied()) {
-        	longCastle = true;
-            board[oldPos.getRow()][0].getPiece().move(board[oldPos.getRow()][3]);
-        }
-        currentTurn = 1 - currentTurn; //change the current turn
-        totalTurns++;
-        
-        ArrayList<Boolean> bools = new ArrayList<Boolean>();
-        bools.add(enPassant);
-        bools.add(twoUp);
-        bools.add(promotion);
-        bools.add(shortCastle);
-        bools.add(longCastle);
-        return new Pair<Piece,ArrayList<Boolean>> (captured, bools); // return the captured piece
+    public Piece nextTurn(Piece piece, Position newPos, int promotion) {
+        return nextTurn(findMove(piece.getPosition(), newPos, promotion));
     }
     
     /**
-     * Moves to the next turn. {@code Piece.isValidMove()} must be called first.
+     * Moves to the next turn, promoting pawns to queens. {@code Piece.isValidMove()} must be called first.
      *
      * @param piece the piece to move
      * @param newPos the new position to move to
      * @return the piece capture (null otherwise)
      */
-    public Pair<Piece,ArrayList<Boolean>> nextTurnAutoQueen(Piece piece, Position newPos) {
-    	Pair<Piece,Boolean> moveData = null;
-    	Piece captured = null;
-    	Boolean enPassant = false;
-    	Boolean twoUp = false;
-    	Boolean promotion = false;
-    	Boolean shortCastle = false;
-    	Boolean longCastle = false;
-    	
-        Position oldPos = piece.getPosition(); // save the old position
-        twoUp = piece instanceof Pawn && ((Pawn) piece).twoUp(newPos); // whether or not a pawn has moved up
-        moveData = piece.move(newPos); // move the piece and save any captured piece
-        captured = moveData.getLeft();
-        enPassant = moveData.getRight();
+    public Piece nextTurnAutoQueen(Piece piece, Position newPos) {
+        return nextTurn(piece, newPos, Bitboard.QUEEN);
+    }
+    
+    /**
+     * Moves to the next turn, updating {@code board} and {@code pieces} as well
+     * as the bitboards.
+     *
+     * @param move a legal move, see {@code getLegalMoves}
+     * @return the piece capture (null otherwise)
+     */
+    public Piece nextTurn(int move) {
+        Position oldPos = positionOf(Move.from(move));
+        Position newPos = positionOf(Move.to(move));
+        Piece piece = oldPos.getPiece();
+        Piece captured = piece.move(newPos).getLeft(); // move the piece and save any captured piece
             
         //if the pawn has reached the other side of the board, promote it.
-        if (piece instanceof Pawn && (newPos.getRow() == 7 || newPos.getRow() == 0)) {
-        	promotion = true;
-            int tempColor = piece.getColor();
-            pieces.remove(piece); // remove the pawn
+        if (Move.promotion(move) != 0) {
+            pieces.remove(Move.to(move)); // remove the pawn
             promotedPawns.add(piece); // need to get this back at some point for backtracking
-            piece.curPos.setPiece(null);
-            // auto promote to queen for now
-            newPos.setPiece(new Queen(newPos, tempColor, this));
+            newPos.setPiece(createPiece(Move.promotion(move), piece.getColor(), newPos));
             pieces.add(newPos.getPiece()); //add to the list of new pieces
-        } else if (twoUp) {//if the pawn has moved up two spots, the pawn can be taken via en passant
+        } else if (Move.isDoublePush(move)) {//if the pawn has moved up two spots, the pawn can be taken via en passant
             ((Pawn) piece).movedTwo = totalTurns+1;
-            //if the king moves two over to the right (castling)
-        } else if (piece instanceof King && oldPos.getCol() + 2 == newPos.getCol()
-                && board[oldPos.getRow()][7].isOccupied()) {
-            shortCastle = true;
+        } else if (Move.isCastling(move) && newPos.getCol() > oldPos.getCol()) {
         	board[oldPos.getRow()][7].getPiece().move(board[oldPos.getRow()][5]);
-            //if the king moves two over to the left (castling)
-        } else if (piece instanceof King && oldPos.getCol() - 2 == newPos.getCol()
-                && board[oldPos.getRow()][0].isOccupied()) {
-        	longCastle = true;
+        } else if (Move.isCastling(move)) {
             board[oldPos.getRow()][0].getPiece().move(board[oldPos.getRow()][3]);
         }
-        currentTurn = 1 - currentTurn; //change the current turn
-        totalTurns++;
         
-        ArrayList<Boolean> bools = new ArrayList<Boolean>();
-        bools.add(enPassant);
-        bools.add(twoUp);
-        bools.add(promotion);
-        bools.add(shortCastle);
-        bools.add(longCastle);
-        return new Pair<Piece,ArrayList<Boolean>> (captured, bools); //return the captured piece
+        if (historyCount == moveHistory.length) {
+        	moveHistory = Arrays.copyOf(moveHistory, historyCount * 2);
+        	undoHistory = Arrays.copyOf(undoHistory, historyCount * 2);
+        }
+        moveHistory[historyCount] = move;
+        undoHistory[historyCount++] = makeMove(move);
+        return captured; // return the captured piece
     }
     
     /**
-     * Rewind the previous move. {@code Piece.isValidMove()} must be called first.
-     *
-     * @param oldPos position to move back to
-     * @param newPos position to move from
+     * Creates the view object for a piece
      */
-    public void prevTurn(Position oldPos, Position newPos, Pair<Piece,ArrayList<Boolean>> turnData) {
-    	this.totalTurns--;
-    	Piece captured = turnData.getLeft();
-    	ArrayList<Boolean> bools = turnData.getRight();
-    	Piece toMoveBack = newPos.getPiece();
-    	Boolean enPassant = bools.get(0);
-    	Boolean twoUp = bools.get(1);
-    	Boolean promotion = bools.get(2);
-    	Boolean shortCastle = bools.get(3);
-    	Boolean longCastle = bools.get(4);
+    private Piece createPiece(int type, int color, Position pos) {
+    	switch (type) {
+    		case Bitboard.QUEEN:
+    			return new Queen(pos, color, this);
+    		case Bitboard.ROOK:
+    			return new Rook(pos, color, this);
+    		case Bitboard.BISHOP:
+    			return new Bishop(pos, color, this);
+    		case Bitboard.KNIGHT:
+    			return new Knight(pos, color, this);
+    		case Bitboard.KING:
+    			return new King(pos, color, this);
+    		default:
+    			return new Pawn(pos, color, this);
+    	}
+    }
+    
+    /**
+     * Rewind the previous move played with {@code nextTurn}.
+     */
+    public void prevTurn() {
+    	int move = moveHistory[--historyCount];
+    	unmakeMove(move, undoHistory[historyCount]);
     	
-    	currentTurn = 1 - currentTurn; //change the current turn
-        
-        if(!promotion) {
-        	toMoveBack.moveBack(oldPos, captured, enPassant);
-        }
+    	Position oldPos = positionOf(Move.from(move));
+    	Position newPos = positionOf(Move.to(move));
+    	Piece toMoveBack = newPos.getPiece();
+    	boolean enPassant = Move.isEnPassant(move);
+    	Piece captured = Move.isCapture(move) ? removed.get(removed.size() - 1) : null;
         
         //if the pawn has reached the other side of the board, get it back
-        if (promotion) {
-        	Piece resurrectedPawn = null;
-            pieces.remove(toMoveBack); // remove the promoted piece
-            newPos.setPiece(null);
-            for (int i = 0; i < promotedPawns.size(); i++) {
-            	if (promotedPawns.get(i).curPos == newPos) {
-            		resurrectedPawn = promotedPawns.get(i);
-            	}
-            }
-            promotedPawns.remove(resurrectedPawn);
+        if (Move.promotion(move) != 0) {
+            pieces.remove(Move.to(move)); // remove the promoted piece
+            // moves are taken back in reverse order, so this is the latest promotion
+            Piece resurrectedPawn = promotedPawns.remove(promotedPawns.size() - 1);
             newPos.setPiece(resurrectedPawn);
             pieces.add(resurrectedPawn); // add the promoted pawn back
             resurrectedPawn.moveBack(oldPos, captured, enPassant);
-        } else if (twoUp) { // if the pawn has moved up two spots, reset enPassantOpportunity
-            ((Pawn) toMoveBack).movedTwo = 0;
-        } else if (shortCastle) {
+        } else {
+        	toMoveBack.moveBack(oldPos, captured, enPassant);
+        }
+        
+        if (Move.isDoublePush(move)) { // if the pawn has moved up two spots, reset enPassantOpportunity
+            ((Pawn) toMoveBack).movedTwo = Pawn.NOT_MOVED_TWO;
+        } else if (Move.isCastling(move) && newPos.getCol() > oldPos.getCol()) {
             board[oldPos.getRow()][5].getPiece().moveBack(board[oldPos.getRow()][7], null, false);
-        } else if (longCastle) {
+        } else if (Move.isCastling(move)) {
             board[oldPos.getRow()][3].getPiece().moveBack(board[oldPos.getRow()][0], null, false);
         }
     }
@@ -484,107 +1069,80 @@ public class Game implements Serializable {
     /**
      * Heuristic for evaluating the position
      * 
-     * @return Numerical value representing the evaluation of the position
+     * @return the evaluation of the position in centipawns
      * (positive values favour white while negative values favour black).
      */
-    public double evaluation() {
-    	Piece p = null;
-    	double material = 0;
+    public int evaluation() {
+    	// material totals are kept up to date as pieces are added, removed and
+    	// moved, the pawn structure rarely changes so it is looked up
+    	long pawns = getPawnHashTable().probe(pawnKey, pieceBB[WHITE][Bitboard.PAWN], pieceBB[BLACK][Bitboard.PAWN]);
+    	int mg = middlegame + PawnStructure.middlegame(pawns) + PawnStructure.shelter(this);
+    	int eg = endgame + PawnStructure.endgame(pawns);
     	
-    	for(int i = 0; i < pieces.size(); i++) {
-    		p = pieces.get(i);
-    		if (p.getColor() == Game.WHITE) {
-    			material += p.getValue();
-    		}
-    		else {
-    			material -= p.getValue();
+    	// blend the middlegame and endgame scores by how much material is left
+    	int p = Math.min(phase, MAX_PHASE); // promotions can take it over the top
+    	return (mg * p + eg * (MAX_PHASE - p)) / MAX_PHASE;
+    }
+    
+    /**
+     * Sums the material from scratch, to check the running totals
+     */
+    private int computeMaterial(int[][][] values) {
+    	int sum = 0;
+    	for (int color = 0; color < 2; color++) {
+    		for (int type = Bitboard.PAWN; type <= Bitboard.KING; type++) {
+    			long b = pieceBB[color][type];
+    			while (b != 0) {
+    				sum += values[color][type][Long.numberOfTrailingZeros(b)];
+    				b &= b - 1;
+    			}
     		}
     	}
-    	
-    	return material;
+    	return sum;
     }
     
     /**
-     * Constructs a tree of all possible positions from the given position,
-     * calculates the value of the position based on minimax using alpha-beta pruning
+     * Returns the transposition table used by {@code Search}. It is
+     * kept for the whole game, so each search starts with what the previous
+     * moves already found.
      * 
-     * @return a tree of all possible paths with evaluations
+     * @return the transposition table
      */
-    public TreeNode<Game> constructGameTree(TreeNode<Game> root, int depth, Double alpha, Double beta) {
-    	Game curGame = root.getData();
-    	int turn = curGame.getCurrentTurn();
-    	
-    	if (depth == 0) {
-    		root.setValue(curGame.evaluation()); // leaf nodes have a heuristic value
-    		root.setData(null);
-    		return root;
+    public TranspositionTable getTranspositionTable() {
+    	if (transpositionTable == null) {
+    		transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_MB);
     	}
-    	
-    	root.setValue(null);
-    	
-    	TreeNode<Game> childTree = null;
-    	Position oldPos = null, newPos = null;
-    	Piece pieceToMove = null;
-    	ArrayList<Pair<Position,Position>> moves = curGame.getLegalMoves();
-    	
-    	if (moves.isEmpty()) {
-    		// check for checkmate or stalemate
-    		if (curGame.inCheck(turn)) {
-    			root.setValue(turn == Game.WHITE ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY);
-    		} else {
-    			root.setValue(0.0);
-    		}
-    		root.setData(null);
-    		return root;
-    	} else if (curGame.isDraw()) {
-    		root.setValue(0.0);
-    		root.setData(null);
-    		return root;
-    	}
-    	
-    	moves.sort((a,b) -> (a.getRight().isOccupied() ? 0 : 1) - (b.getRight().isOccupied() ? 0 : 1));
-    	Pair<Position,Position> bestMove = null;
-    	Double bestMoveValue = null;
-    	
-    	for(Pair<Position,Position> move : moves) {
-    		oldPos = move.getLeft();
-    		newPos = move.getRight();
-    		pieceToMove = oldPos.getPiece();
-    		
-    		Pair<Piece,ArrayList<Boolean>> turnData = curGame.nextTurnAutoQueen(pieceToMove, newPos);
-    		
-    		childTree = constructGameTree(new TreeNode<Game>(curGame), depth-1, alpha, beta);
-    		
-    		root.addChild(childTree);
-    		
-    		curGame.prevTurn(oldPos, newPos, turnData);
-    		
-    		if (bestMoveValue == null) {
-    			bestMove = move;
-    			bestMoveValue = childTree.getValue();
-    		} else if (turn == Game.WHITE && childTree.getValue() > bestMoveValue) {
-    			bestMove = move;
-    			bestMoveValue = childTree.getValue();
-    		} else if (turn == Game.BLACK && childTree.getValue() < bestMoveValue) {
-    			bestMove = move;
-    			bestMoveValue = childTree.getValue();
-    		}
-    		
-    		if (turn == Game.BLACK) {
-    			beta = Math.min(beta, bestMoveValue);
-    			if (beta <= alpha)
-    				break;
-    		} else {
-    			alpha = Math.max(alpha, bestMoveValue);
-    			if (beta <= alpha)
-    				break;
-    		}
+    	return transpositionTable;
+    }
+    
+    /**
+     * Returns the pawn hash table used by {@code evaluation}
+     * 
+     * @return the pawn hash table
+     */
+    public PawnHashTable getPawnHashTable() {
+    	if (pawnHashTable == null) {
+    		pawnHashTable = new PawnHashTable(PawnHashTable.DEFAULT_MB);
     	}
-    	
-    	root.setMove(bestMove);
-    	root.setValue(bestMoveValue);
-    	root.setData(null); // clean up
-    	
-    	return root;
+    	return pawnHashTable;
+    }
+    
+    /**
+     * Replaces the pawn hash table, e.g. to change its size. The table must
+     * not be shared with a game searched on another thread.
+     * 
+     * @param pawns the new table
+     */
+    public void setPawnHashTable(PawnHashTable pawns) {
+    	this.pawnHashTable = pawns;
+    }
+    
+    /**
+     * Replaces the transposition table, e.g. to change its size
+     * 
+     * @param tt the new table
+     */
+    public void setTranspositionTable(TranspositionTable tt) {
+    	this.transpositionTable = tt;
     }
 }
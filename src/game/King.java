@@ -13,8 +13,35 @@ public class King extends Piece {
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
-	private double value = 90; // the king is invaluable, but we account for this in another way
-						      // see Game.constructGameTree
+	/**
+	 * value in centipawns on each square, indexed [color][square]. Good squares
+	 * get a bonus and bad squares a penalty. The king is invaluable, but we
+	 * account for this in another way, see Search.
+	 */
+	private static final int[][] VALUES = squareValues(9000, new int[] {
+		-30, -40, -40, -50, -50, -40, -40, -30,
+		-30, -40, -40, -50, -50, -40, -40, -30,
+		-30, -40, -40, -50, -50, -40, -40, -30,
+		-30, -40, -40, -50, -50, -40, -40, -30,
+		-20, -30, -30, -40, -40, -30, -30, -20,
+		-10, -20, -20, -20, -20, -20, -20, -10,
+		 20,  20,   0,   0,   0,   0,  20,  20,
+		 20,  30,  10,   0,   0,  10,  30,  20
+	});
+	/**
+	 * value in centipawns on each square in the endgame, where there is nothing
+	 * left to hide from and the king belongs in the center
+	 */
+	private static final int[][] ENDGAME_VALUES = squareValues(9000, new int[] {
+		-50, -40, -30, -20, -20, -30, -40, -50,
+		-30, -20, -10,   0,   0, -10, -20, -30,
+		-30, -10,  20,  30,  30,  20, -10, -30,
+		-30, -10,  30,  40,  40,  30, -10, -30,
+		-30, -10,  30,  40,  40,  30, -10, -30,
+		-30, -10,  20,  30,  30,  20, -10, -30,
+		-30, -30,   0,   0,   0,   0, -30, -30,
+		-50, -30, -30, -30, -30, -30, -30, -50
+	});
 	
 	/**
      * Inherit behavior from parent class
@@ -69,7 +96,7 @@ public class King extends Piece {
                 && game.board[curPos.getRow()][7].isOccupied()
                 && game.board[curPos.getRow()][7].getPiece().nMoves == 0
                 && newPos.getRow() == curPos.getRow() && newPos.getCol() == 6
-                && game.nothingInBetween(game.board[curPos.getRow()][7], game.board[curPos.getRow()][curPos.getCol() + 1], 1, 0)
+                && (Bitboard.between(Game.squareOf(curPos), Game.squareOf(game.board[curPos.getRow()][7])) & game.occupied) == 0
                 && noInterference(curPos, game.board[curPos.getRow()][6]); // there must be no threat in the king's path
     }
 
@@ -84,7 +111,7 @@ public class King extends Piece {
                 && game.board[curPos.getRow()][0].isOccupied()
                 && game.board[curPos.getRow()][0].getPiece().nMoves == 0
                 && newPos.getRow() == curPos.getRow() && newPos.getCol() == 2
-                && game.nothingInBetween(game.board[curPos.getRow()][0], game.board[curPos.getRow()][curPos.getCol() - 1], -1, 0)
+                && (Bitboard.between(Game.squareOf(curPos), Game.squareOf(game.board[curPos.getRow()][0])) & game.occupied) == 0
                 && noInterference(game.board[curPos.getRow()][2], curPos);
     }
 
@@ -98,36 +125,27 @@ public class King extends Piece {
      */
     public boolean noInterference(Position posA, Position posB) {
     	while (posA != posB) {
-    		if (!super.isValidMove(posB)) {
+    		if (game.isSquareAttacked(Game.squareOf(posB), 1 - color)) {
     			return false;
     		}
     		posB =  game.board[posB.getRow()][posB.getCol() - 1];
     	}
-        return super.isValidMove(posB);
+        return !game.isSquareAttacked(Game.squareOf(posB), 1 - color);
     }
 
-	public double getValue() {
-		return value + 0.1*pieceValueTable()[curPos.getRow()][curPos.getCol()];
+	@Override
+	public int getType() {
+		return Bitboard.KING;
+	}
+
+	@Override
+	public int getValue() {
+		return VALUES[color][Game.squareOf(curPos)];
 	}
 	
 	@Override
-	protected double[][] pieceValueTable() {
-		double[][] table = {
-			{ -3.0, -4.0, -4.0, -5.0, -5.0, -4.0, -4.0, -3.0 },
-			{ -3.0, -4.0, -4.0, -5.0, -5.0, -4.0, -4.0, -3.0 },
-			{ -3.0, -4.0, -4.0, -5.0, -5.0, -4.0, -4.0, -3.0 },
-			{ -3.0, -4.0, -4.0, -5.0, -5.0, -4.0, -4.0, -3.0 },
-			{ -2.0, -3.0, -3.0, -4.0, -4.0, -3.0, -3.0, -2.0 },
-			{ -1.0, -2.0, -2.0, -2.0, -2.0, -2.0, -2.0, -1.0 },
-			{  2.0,  2.0,  0.0,  0.0,  0.0,  0.0,  2.0,  2.0 },
-			{  2.0,  3.0,  1.0,  0.0,  0.0,  1.0,  3.0,  2.0 }
-		};
-		if (color == Game.WHITE) {
-			return table;
-		} else {
-			reverse(table);
-			return table;
-		}
+	public int getEndgameValue() {
+		return ENDGAME_VALUES[color][Game.squareOf(curPos)];
 	}
 	
     @Override
@@ -13,7 +13,20 @@ public class Knight extends Piece {
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
-	private double value = 3;
+	/**
+	 * value in centipawns on each square, indexed [color][square]. Good squares
+	 * get a bonus and bad squares a penalty.
+	 */
+	private static final int[][] VALUES = squareValues(300, new int[] {
+		-50, -40, -30, -30, -30, -30, -40, -50,
+		-40, -20,   0,   0,   0,   0, -20, -40,
+		-30,   0,  10,  15,  15,  10,   0, -30,
+		-30,   5,  15,  20,  20,  15,   5, -30,
+		-30,   0,  15,  20,  20,  15,   0, -30,
+		-30,   5,  10,  15,  15,  10,   5, -30,
+		-40, -20,   0,   5,   5,   0, -20, -40,
+		-50, -40, -30, -30, -30, -30, -40, -50
+	});
 	/**
      *
      * @param pos
@@ -46,28 +59,14 @@ public class Knight extends Piece {
                 || newPos.getPiece().getColor() != getColor()); // piece must not attack its own side
     }
 
-	public double getValue() {
-		return value + 0.1*pieceValueTable()[curPos.getRow()][curPos.getCol()];
+	@Override
+	public int getType() {
+		return Bitboard.KNIGHT;
 	}
-	
+
 	@Override
-	protected double[][] pieceValueTable() {
-		double[][] table = {
-            {-5.0, -4.0, -3.0, -3.0, -3.0, -3.0, -4.0, -5.0},
-            {-4.0, -2.0,  0.0,  0.0,  0.0,  0.0, -2.0, -4.0},
-            {-3.0,  0.0,  1.0,  1.5,  1.5,  1.0,  0.0, -3.0},
-            {-3.0,  0.5,  1.5,  2.0,  2.0,  1.5,  0.5, -3.0},
-            {-3.0,  0.0,  1.5,  2.0,  2.0,  1.5,  0.0, -3.0},
-            {-3.0,  0.5,  1.0,  1.5,  1.5,  1.0,  0.5, -3.0},
-            {-4.0, -2.0,  0.0,  0.5,  0.5,  0.0, -2.0, -4.0},
-            {-5.0, -4.0, -3.0, -3.0, -3.0, -3.0, -4.0, -5.0}
-        };
-		if (color == Game.WHITE) {
-			return table;
-		} else {
-			reverse(table);
-			return table;
-		}
+	public int getValue() {
+		return VALUES[color][Game.squareOf(curPos)];
 	}
 
 	@Override
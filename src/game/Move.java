@@ -0,0 +1,123 @@
+package game;
+
+/**
+ * Moves are passed around as plain ints so the search does not allocate
+ * anything per move. The layout is
+ *
+ * <pre>
+ * bits  0-5   from square
+ * bits  6-11  to square
+ * bits 12-14  promotion piece type (0 if none, a pawn never promotes to a pawn)
+ * bit  15     capture
+ * bit  16     en passant
+ * bit  17     castling
+ * bit  18     pawn moved two squares
+ * </pre>
+ *
+ * @author Jurgen Aliaj
+ */
+public final class Move {
+
+    /**
+     * no move, a1 to a1 is never generated
+     */
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int EN_PASSANT = 1 << 16;
+    public static final int CASTLING = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    private Move() {
+    }
+
+    /**
+     * Packs a move into an int
+     *
+     * @param from the square to move from
+     * @param to the square to move to
+     * @param promotion the piece type to promote to, 0 if none
+     * @param flags any of the flag constants in this class
+     * @return the encoded move
+     */
+    public static int create(int from, int to, int promotion, int flags) {
+        return from | to << 6 | promotion << 12 | flags;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & CASTLING) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * Converts a move to coordinate notation, e.g. e2e4 or e7e8q
+     *
+     * @param move the encoded move
+     * @return the move as a string
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String s = squareName(from(move)) + squareName(to(move));
+        switch (promotion(move)) {
+            case Bitboard.QUEEN:
+                return s + "q";
+            case Bitboard.ROOK:
+                return s + "r";
+            case Bitboard.BISHOP:
+                return s + "b";
+            case Bitboard.KNIGHT:
+                return s + "n";
+            default:
+                return s;
+        }
+    }
+
+    /**
+     * @param sq a square index
+     * @return the square in algebraic notation, e.g. e4
+     */
+    public static String squareName(int sq) {
+        return Character.toString((char) ((sq & 7) + 'a')) + Integer.toString((sq >>> 3) + 1);
+    }
+
+    /**
+     * @param name a square in algebraic notation, e.g. e4
+     * @return the square index, or -1 if the name is not a square
+     */
+    public static int parseSquare(String name) {
+        if (name.length() != 2) {
+            return -1;
+        }
+        int col = name.charAt(0) - 'a';
+        int row = name.charAt(1) - '1';
+        if (col < 0 || col > 7 || row < 0 || row > 7) {
+            return -1;
+        }
+        return row * 8 + col;
+    }
+}
@@ -0,0 +1,205 @@
+package game;
+
+/**
+ * Generates moves in a single pass over the bitboards of a {@code Game}.
+ * Check and pin masks are applied while generating, so almost every move
+ * produced is legal. The exceptions (king steps and en passant captures, see
+ * {@link #needsCheck(Game, int)}) are verified by the caller only if the move
+ * is actually played.
+ *
+ * @author Jurgen Aliaj
+ */
+public final class MoveGenerator {
+
+    /**
+     * more than the number of moves in any legal position
+     */
+    public static final int MAX_MOVES = 256;
+
+    private static final int[] PROMOTIONS = {Bitboard.QUEEN, Bitboard.KNIGHT, Bitboard.ROOK, Bitboard.BISHOP};
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Writes the pseudo-legal moves for one side into a buffer
+     *
+     * @param game the game to generate moves for
+     * @param color the side to move
+     * @param moves the buffer to write to, at least {@code MAX_MOVES} long
+     * @return the number of moves written
+     */
+    public static int generate(Game game, int color, int[] moves) {
+        long[] us = game.pieceBB[color];
+        long own = game.colorBB[color];
+        long occ = game.occupied;
+        long kingBB = us[Bitboard.KING];
+        if (kingBB == 0) {
+            return 0;
+        }
+        int king = Long.numberOfTrailingZeros(kingBB);
+
+        long checkers = game.attackersTo(king, 1 - color, occ);
+        int n = addMoves(game, king, Attacks.king(king) & ~own, moves, 0);
+
+        if (Long.bitCount(checkers) > 1) {
+            return n; // double check, only the king can move
+        }
+
+        // squares that resolve a single check: capture the checker or block it
+        long checkMask = -1L;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | Bitboard.between(king, checker);
+        } else {
+            n = addCastling(game, color, king, moves, n);
+        }
+
+        // pieces pinned to the king may only move along the pinning ray
+        long[] them = game.pieceBB[1 - color];
+        long pinned = 0L;
+        long pinners = (Attacks.rook(king, occ & ~(Attacks.rook(king, occ) & own))
+                & (them[Bitboard.ROOK] | them[Bitboard.QUEEN]))
+                | (Attacks.bishop(king, occ & ~(Attacks.bishop(king, occ) & own))
+                & (them[Bitboard.BISHOP] | them[Bitboard.QUEEN]));
+        while (pinners != 0) {
+            long blocker = Bitboard.between(king, Long.numberOfTrailingZeros(pinners)) & own;
+            pinners &= pinners - 1;
+            if (Long.bitCount(blocker) == 1) {
+                pinned |= blocker;
+            }
+        }
+
+        long pieces = own & ~kingBB & ~us[Bitboard.PAWN];
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            long fromBB = pieces & -pieces;
+            pieces &= pieces - 1;
+            long targets;
+            switch (game.pieceAt[from]) {
+                case Bitboard.KNIGHT:
+                    targets = Attacks.knight(from);
+                    break;
+                case Bitboard.BISHOP:
+                    targets = Attacks.bishop(from, occ);
+                    break;
+                case Bitboard.ROOK:
+                    targets = Attacks.rook(from, occ);
+                    break;
+                default:
+                    targets = Attacks.queen(from, occ);
+            }
+            targets &= ~own & checkMask;
+            if ((pinned & fromBB) != 0) {
+                targets &= Bitboard.line(king, from);
+            }
+            n = addMoves(game, from, targets, moves, n);
+        }
+
+        return addPawnMoves(game, color, king, checkMask, pinned, moves, n);
+    }
+
+    /**
+     * Whether a move from {@code generate} may still leave the mover's king in
+     * check. Must be asked before the move is made.
+     *
+     * @param game the game the move was generated for
+     * @param move the encoded move
+     * @return true if the king has to be checked after playing the move
+     */
+    public static boolean needsCheck(Game game, int move) {
+        return Move.isEnPassant(move)
+                || (game.pieceAt[Move.from(move)] == Bitboard.KING && !Move.isCastling(move));
+    }
+
+    /**
+     * Adds pawn pushes, captures, promotions and en passant captures
+     */
+    private static int addPawnMoves(Game game, int color, int king, long checkMask, long pinned,
+            int[] moves, int n) {
+        long pawns = game.pieceBB[color][Bitboard.PAWN];
+        long enemy = game.colorBB[1 - color];
+        long empty = ~game.occupied;
+        int forward = color == Game.WHITE ? 8 : -8;
+        int startRow = color == Game.WHITE ? 1 : 6;
+        long epTarget = game.epSquare < 0 ? 0L : Bitboard.bit(game.epSquare);
+
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            long fromBB = pawns & -pawns;
+            pawns &= pawns - 1;
+            long allowed = checkMask;
+            if ((pinned & fromBB) != 0) {
+                allowed &= Bitboard.line(king, from);
+            }
+
+            long attacks = Attacks.pawn(color, from);
+            long targets = attacks & enemy & allowed;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                n = addPawnMove(from, to, Move.CAPTURE, moves, n);
+            }
+
+            long single = Bitboard.bit(from + forward) & empty;
+            if ((single & allowed) != 0) {
+                n = addPawnMove(from, from + forward, 0, moves, n);
+            }
+            if (single != 0 && from >>> 3 == startRow
+                    && (Bitboard.bit(from + 2 * forward) & empty & allowed) != 0) {
+                moves[n++] = Move.create(from, from + 2 * forward, 0, Move.DOUBLE_PUSH);
+            }
+
+            // the captured pawn does not sit on the target square, so this is left to the caller
+            if ((attacks & epTarget) != 0) {
+                moves[n++] = Move.create(from, game.epSquare, 0, Move.CAPTURE | Move.EN_PASSANT);
+            }
+        }
+        return n;
+    }
+
+    private static int addPawnMove(int from, int to, int flags, int[] moves, int n) {
+        if (to >= 56 || to < 8) {
+            for (int promotion : PROMOTIONS) {
+                moves[n++] = Move.create(from, to, promotion, flags);
+            }
+        } else {
+            moves[n++] = Move.create(from, to, 0, flags);
+        }
+        return n;
+    }
+
+    /**
+     * Adds castling moves. The castling right must still be there, the
+     * squares between king and rook must be empty and the king may not pass
+     * through an attacked square. The caller has already made sure we are not
+     * in check.
+     */
+    private static int addCastling(Game game, int color, int king, int[] moves, int n) {
+        int rights = game.castling >> (2 * color);
+        long occ = game.occupied;
+        if ((rights & Game.SHORT_CASTLE) != 0
+                && (occ & Bitboard.between(king, king + 3)) == 0
+                && !game.isSquareAttacked(king + 1, 1 - color)
+                && !game.isSquareAttacked(king + 2, 1 - color)) {
+            moves[n++] = Move.create(king, king + 2, 0, Move.CASTLING);
+        }
+        if ((rights & Game.LONG_CASTLE) != 0
+                && (occ & Bitboard.between(king, king - 4)) == 0
+                && !game.isSquareAttacked(king - 1, 1 - color)
+                && !game.isSquareAttacked(king - 2, 1 - color)) {
+            moves[n++] = Move.create(king, king - 2, 0, Move.CASTLING);
+        }
+        return n;
+    }
+
+    private static int addMoves(Game game, int from, long targets, int[] moves, int n) {
+        long occ = game.occupied; // targets never hold our own pieces
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[n++] = Move.create(from, to, 0, (occ & Bitboard.bit(to)) != 0 ? Move.CAPTURE : 0);
+        }
+        return n;
+    }
+}
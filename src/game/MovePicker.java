@@ -0,0 +1,190 @@
+package game;
+
+/**
+ * Hands out the moves of a position one at a time, best guesses first: the
+ * transposition table move, then captures and promotions by MVV-LVA (most
+ * valuable victim, least valuable attacker), then the two killer moves, then
+ * the remaining quiet moves by history score. Each move is found by a
+ * selection step when it is asked for, so nothing is sorted beyond the
+ * point where the search cuts off.
+ *
+ * The search keeps one picker per ply, so picking moves allocates nothing.
+ *
+ * @author Jurgen Aliaj
+ */
+final class MovePicker {
+
+    /*
+     * Stages, in the order moves are handed out
+     */
+    private static final int HASH_MOVE = 0;
+    private static final int CAPTURES = 1;
+    private static final int KILLERS = 2;
+    private static final int QUIETS = 3;
+    private static final int DONE = 4;
+
+    /**
+     * rough value of each piece type, for ranking captures
+     */
+    private static final int[] VALUE = {1, 3, 3, 5, 9, 100};
+
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+    private int count;
+    private int captures;
+    private int index;
+    private int stage;
+
+    private int hashMove;
+    private int killer1;
+    private int killer2;
+    private int killerIndex;
+    private int[] history;
+
+    /**
+     * Generates the moves of a position and gets ready to hand them out
+     *
+     * @param game the position
+     * @param hashMove the move from the transposition table, or Move.NONE
+     * @param killer1 the first killer move at this ply, or Move.NONE
+     * @param killer2 the second killer move at this ply, or Move.NONE
+     * @param history history scores of the side to move, indexed from * 64 + to
+     */
+    void init(Game game, int hashMove, int killer1, int killer2, int[] history) {
+        this.count = MoveGenerator.generate(game, game.getCurrentTurn(), moves);
+        this.history = history;
+        this.stage = HASH_MOVE;
+        this.killerIndex = 0;
+
+        // captures and promotions go to the front, scored by what they win
+        captures = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (Move.isCapture(move) || Move.promotion(move) != 0) {
+                int victim = Move.isEnPassant(move) ? Bitboard.PAWN : game.pieceAt[Move.to(move)];
+                int score = Move.promotion(move) != 0 ? VALUE[Move.promotion(move)] * 16 : 0;
+                if (victim != Game.EMPTY) {
+                    score += VALUE[victim] * 16 - VALUE[game.pieceAt[Move.from(move)]];
+                }
+                moves[i] = moves[captures];
+                moves[captures] = move;
+                scores[captures++] = score;
+            }
+        }
+
+        // only trust moves we generated ourselves, entries may collide
+        this.hashMove = contains(0, count, hashMove) ? hashMove : Move.NONE;
+        this.killer1 = killer1 != hashMove && contains(captures, count, killer1) ? killer1 : Move.NONE;
+        this.killer2 = killer2 != hashMove && contains(captures, count, killer2) ? killer2 : Move.NONE;
+    }
+
+    /**
+     * Generates the moves of a position, but only hands out the captures and
+     * promotions, for the quiescence search
+     *
+     * @param game the position
+     */
+    void initTactical(Game game) {
+        init(game, Move.NONE, Move.NONE, Move.NONE, null);
+        count = captures;
+    }
+
+    /**
+     * @return the next move to search, or Move.NONE when there are no more
+     */
+    @SuppressWarnings("fallthrough") // each stage falls through to the next when it runs out
+    int next() {
+        switch (stage) {
+            case HASH_MOVE:
+                stage = CAPTURES;
+                index = 0;
+                if (hashMove != Move.NONE) {
+                    return hashMove;
+                }
+                // fall through
+            case CAPTURES:
+                while (index < captures) {
+                    int move = pickBest(index++, captures);
+                    if (move != hashMove) {
+                        return move;
+                    }
+                }
+                stage = KILLERS;
+                // fall through
+            case KILLERS:
+                while (killerIndex < 2) {
+                    int killer = killerIndex++ == 0 ? killer1 : killer2;
+                    if (killer != Move.NONE) {
+                        return killer;
+                    }
+                }
+                stage = QUIETS;
+                for (int i = captures; i < count; i++) {
+                    scores[i] = history[Move.from(moves[i]) << 6 | Move.to(moves[i])];
+                }
+                // fall through
+            case QUIETS:
+                while (index < count) {
+                    int move = pickBest(index++, count);
+                    if (move != hashMove && move != killer1 && move != killer2) {
+                        return move;
+                    }
+                }
+                stage = DONE;
+                // fall through
+            default:
+                return Move.NONE;
+        }
+    }
+
+    /**
+     * The most a move can change the material balance by, in centipawns
+     *
+     * @param game the position before the move
+     * @param move the move
+     * @return the value of the captured piece plus what a promotion gains
+     */
+    static int materialGain(Game game, int move) {
+        int gain = 0;
+        if (Move.isEnPassant(move)) {
+            gain = VALUE[Bitboard.PAWN];
+        } else if (Move.isCapture(move)) {
+            gain = VALUE[game.pieceAt[Move.to(move)]];
+        }
+        if (Move.promotion(move) != 0) {
+            gain += VALUE[Move.promotion(move)] - VALUE[Bitboard.PAWN];
+        }
+        return gain * 100;
+    }
+
+    /**
+     * Swaps the highest scoring move in [from, to) into position from
+     */
+    private int pickBest(int from, int to) {
+        int best = from;
+        for (int i = from + 1; i < to; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moves[best];
+        int score = scores[best];
+        moves[best] = moves[from];
+        scores[best] = scores[from];
+        moves[from] = move;
+        scores[from] = score;
+        return move;
+    }
+
+    private boolean contains(int from, int to, int move) {
+        if (move == Move.NONE) {
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -13,7 +13,42 @@ public class Pawn extends Piece {
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
-	private double value = 1;
+	/**
+	 * value in centipawns on each square, indexed [color][square]. Good squares
+	 * get a bonus and bad squares a penalty.
+	 */
+	private static final int[][] VALUES = squareValues(100, new int[] {
+		  0,   0,   0,   0,   0,   0,   0,   0,
+		 50,  50,  50,  50,  50,  50,  50,  50,
+		 10,  10,  20,  30,  30,  20,  10,  10,
+		  5,   5,  10,  25,  25,  10,   5,   5,
+		  0,   0,   0,  20,  20,   0,   0,   0,
+		  5,  -5, -10,   0,   0, -10,  -5,   5,
+		  5,  10,  10, -20, -20,  10,  10,   5,
+		  0,   0,   0,   0,   0,   0,   0,   0
+	});
+	/**
+	 * value in centipawns on each square in the endgame, where passed pawns
+	 * decide the game and advancing matters more than the center
+	 */
+	private static final int[][] ENDGAME_VALUES = squareValues(100, new int[] {
+		  0,   0,   0,   0,   0,   0,   0,   0,
+		 80,  80,  80,  80,  80,  80,  80,  80,
+		 50,  50,  50,  50,  50,  50,  50,  50,
+		 30,  30,  30,  30,  30,  30,  30,  30,
+		 20,  20,  20,  20,  20,  20,  20,  20,
+		 10,  10,  10,  10,  10,  10,  10,  10,
+		  5,   5,   5,   5,   5,   5,   5,   5,
+		  0,   0,   0,   0,   0,   0,   0,   0
+	});
+	/**
+	 * movedTwo of a pawn that has not just moved two squares, no turn has this number
+	 */
+	public static final int NOT_MOVED_TWO = -1;
+	/**
+	 * the turn number right after the pawn moved two squares, while it can
+	 * be taken en passant
+	 */
 	public int movedTwo;
 	
     /**
@@ -24,7 +59,7 @@ public class Pawn extends Piece {
      */
     public Pawn(Position pos, int color, Game game) {
         super(pos, color, game);
-        movedTwo = 0;
+        movedTwo = NOT_MOVED_TWO;
     }
 
     @Override
@@ -139,28 +174,19 @@ public class Pawn extends Piece {
                 && newPos.getCol() == y - 1;
     }
 
-	public double getValue() {
-		return value + 0.1*pieceValueTable()[curPos.getRow()][curPos.getCol()];
+	@Override
+	public int getType() {
+		return Bitboard.PAWN;
+	}
+
+	@Override
+	public int getValue() {
+		return VALUES[color][Game.squareOf(curPos)];
 	}
 	
 	@Override
-	protected double[][] pieceValueTable() {
-		double[][] table = {
-	        {0.0,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0},
-	        {5.0,  5.0,  5.0,  5.0,  5.0,  5.0,  5.0,  5.0},
-	        {1.0,  1.0,  2.0,  3.0,  3.0,  2.0,  1.0,  1.0},
-	        {0.5,  0.5,  1.0,  2.5,  2.5,  1.0,  0.5,  0.5},
-	        {0.0,  0.0,  0.0,  2.0,  2.0,  0.0,  0.0,  0.0},
-	        {0.5, -0.5, -1.0,  0.0,  0.0, -1.0, -0.5,  0.5},
-	        {0.5,  1.0, 1.0,  -2.0, -2.0,  1.0,  1.0,  0.5},
-	        {0.0,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0}
-        };
-		if (color == Game.WHITE) {
-			return table;
-		} else {
-			reverse(table);
-			return table;
-		}
+	public int getEndgameValue() {
+		return ENDGAME_VALUES[color][Game.squareOf(curPos)];
 	}
 
 	@Override
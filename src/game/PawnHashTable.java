@@ -0,0 +1,82 @@
+package game;
+
+/**
+ * Caches the pawn structure score by the Zobrist key of the pawns alone.
+ * Pawns move rarely compared to the other pieces, so most positions in a
+ * search share their pawn structure with many others.
+ *
+ * Unlike the {@code TranspositionTable} this table is not shared between
+ * threads, each {@code Game} copy has its own.
+ *
+ * @author Jurgen Aliaj
+ */
+public final class PawnHashTable {
+
+    public static final int DEFAULT_MB = 1;
+
+    private final long[] keys;
+    private final long[] scores;
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    /**
+     * @param megabytes the size of the table, rounded down to a power of two entries
+     */
+    public PawnHashTable(int megabytes) {
+        long entries = Math.max(1L, (long) megabytes << 20) / 16;
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        this.keys = new long[size];
+        this.scores = new long[size];
+        this.mask = size - 1;
+        // key 0 is the position without pawns, make sure it does not hit an empty slot
+        this.keys[0] = -1L;
+    }
+
+    /**
+     * Looks up the score of a pawn structure, computing and storing it on a miss
+     *
+     * @param pawnKey the Zobrist key of the pawns
+     * @param whitePawns the white pawns
+     * @param blackPawns the black pawns
+     * @return the packed score, see {@code PawnStructure.evaluate}
+     */
+    public long probe(long pawnKey, long whitePawns, long blackPawns) {
+        probes++;
+        int i = (int) pawnKey & mask;
+        if (keys[i] == pawnKey) {
+            hits++;
+            return scores[i];
+        }
+        long score = PawnStructure.evaluate(whitePawns, blackPawns);
+        keys[i] = pawnKey;
+        scores[i] = score;
+        return score;
+    }
+
+    /**
+     * @return the number of lookups since the counters were last reset
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * @return the number of lookups that were found in the table
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the fraction of lookups found in the table, 0 if there were none
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    public void resetCounters() {
+        probes = 0;
+        hits = 0;
+    }
+}
@@ -0,0 +1,164 @@
+package game;
+
+/**
+ * Evaluation terms that depend on how the pawns are placed: doubled,
+ * isolated, backward and passed pawns, which only depend on the pawns and
+ * are cached in a {@code PawnHashTable}, and the pawn shield in front of
+ * each king, which is cheap enough to count at every node.
+ *
+ * Scores are in centipawns from white's point of view.
+ *
+ * @author Jurgen Aliaj
+ */
+public final class PawnStructure {
+
+    private static final int DOUBLED_MG = -10;
+    private static final int DOUBLED_EG = -20;
+    private static final int ISOLATED_MG = -10;
+    private static final int ISOLATED_EG = -15;
+    private static final int BACKWARD_MG = -8;
+    private static final int BACKWARD_EG = -10;
+    private static final int SHIELD_MG = 10;
+
+    /**
+     * bonus for a passed pawn by the rank it stands on, counted from its own side
+     */
+    private static final int[] PASSED_MG = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_EG = {0, 10, 20, 35, 60, 90, 130, 0};
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    /**
+     * squares on the same and adjacent files in front of a pawn, indexed [color][square]
+     */
+    private static final long[][] PASSED_MASK = new long[2][64];
+    /**
+     * squares on the adjacent files level with or behind a pawn, where pawns
+     * that could support it stand
+     */
+    private static final long[][] SUPPORT_MASK = new long[2][64];
+    /**
+     * the two ranks in front of a king on its file and the adjacent files
+     */
+    private static final long[][] SHIELD_MASK = new long[2][64];
+
+    static {
+        for (int col = 0; col < 8; col++) {
+            FILES[col] = Bitboard.FILE_A << col;
+        }
+        for (int col = 0; col < 8; col++) {
+            ADJACENT_FILES[col] = (col > 0 ? FILES[col - 1] : 0L) | (col < 7 ? FILES[col + 1] : 0L);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            int row = sq >>> 3;
+            int col = sq & 7;
+            long wide = FILES[col] | ADJACENT_FILES[col];
+            for (int r = 0; r < 8; r++) {
+                long rank = Bitboard.RANK_1 << (8 * r);
+                if (r > row) {
+                    PASSED_MASK[Game.WHITE][sq] |= wide & rank;
+                } else {
+                    SUPPORT_MASK[Game.WHITE][sq] |= ADJACENT_FILES[col] & rank;
+                }
+                if (r < row) {
+                    PASSED_MASK[Game.BLACK][sq] |= wide & rank;
+                } else {
+                    SUPPORT_MASK[Game.BLACK][sq] |= ADJACENT_FILES[col] & rank;
+                }
+                if (r == row + 1 || r == row + 2) {
+                    SHIELD_MASK[Game.WHITE][sq] |= wide & rank;
+                }
+                if (r == row - 1 || r == row - 2) {
+                    SHIELD_MASK[Game.BLACK][sq] |= wide & rank;
+                }
+            }
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    /**
+     * Scores the pawn-only terms
+     *
+     * @param whitePawns the white pawns
+     * @param blackPawns the black pawns
+     * @return the middlegame score in the high 32 bits and the endgame score
+     * in the low 32 bits, see {@code PawnHashTable}
+     */
+    public static long evaluate(long whitePawns, long blackPawns) {
+        int mg = 0;
+        int eg = 0;
+        for (int color = 0; color < 2; color++) {
+            int sign = color == Game.WHITE ? 1 : -1;
+            long own = color == Game.WHITE ? whitePawns : blackPawns;
+            long enemy = color == Game.WHITE ? blackPawns : whitePawns;
+            long enemyAttacks = Bitboard.pawnAttacks(enemy, 1 - color);
+
+            for (int col = 0; col < 8; col++) {
+                int count = Long.bitCount(own & FILES[col]);
+                if (count > 1) {
+                    mg += sign * DOUBLED_MG * (count - 1);
+                    eg += sign * DOUBLED_EG * (count - 1);
+                }
+            }
+
+            long pawns = own;
+            while (pawns != 0) {
+                int sq = Long.numberOfTrailingZeros(pawns);
+                pawns &= pawns - 1;
+                int col = sq & 7;
+                int rank = color == Game.WHITE ? sq >>> 3 : 7 - (sq >>> 3);
+
+                if ((own & ADJACENT_FILES[col]) == 0) {
+                    mg += sign * ISOLATED_MG;
+                    eg += sign * ISOLATED_EG;
+                } else if ((own & SUPPORT_MASK[color][sq]) == 0) {
+                    // no pawn can come to its aid, and it cannot safely step up
+                    int stop = color == Game.WHITE ? sq + 8 : sq - 8;
+                    if ((enemyAttacks & Bitboard.bit(stop)) != 0) {
+                        mg += sign * BACKWARD_MG;
+                        eg += sign * BACKWARD_EG;
+                    }
+                }
+                if ((enemy & PASSED_MASK[color][sq]) == 0) {
+                    mg += sign * PASSED_MG[rank];
+                    eg += sign * PASSED_EG[rank];
+                }
+            }
+        }
+        return pack(mg, eg);
+    }
+
+    /**
+     * Counts the pawns standing in front of each king. Depends on the kings as
+     * well as the pawns, so it is not cached with the rest.
+     *
+     * @param game the position
+     * @return the middlegame bonus from white's point of view
+     */
+    public static int shelter(Game game) {
+        int score = 0;
+        for (int color = 0; color < 2; color++) {
+            int king = Long.numberOfTrailingZeros(game.pieceBB[color][Bitboard.KING]);
+            if (king == 64) {
+                continue;
+            }
+            int count = Long.bitCount(game.pieceBB[color][Bitboard.PAWN] & SHIELD_MASK[color][king]);
+            score += (color == Game.WHITE ? 1 : -1) * SHIELD_MG * count;
+        }
+        return score;
+    }
+
+    static long pack(int middlegame, int endgame) {
+        return (long) middlegame << 32 | (endgame & 0xFFFFFFFFL);
+    }
+
+    public static int middlegame(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    public static int endgame(long packed) {
+        return (int) packed;
+    }
+}
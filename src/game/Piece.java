@@ -2,7 +2,7 @@ package game;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.Arrays;
 
 import misc.Pair;
 
@@ -36,22 +36,14 @@ public abstract class Piece implements Serializable {
     }
 
     /**
-     * Check if the move does not result in the king being exposed.
-     * All subclasses should call super.isValidMove(pos);
+     * Check if the move is legal, in particular that it does not result in
+     * the king being exposed. All subclasses should call super.isValidMove(pos);
      *
      * @param newPos the position to move to
      * @return whether or not the new position is a valid move
      */
     public boolean isValidMove(Position newPos) {
-        Position oldPos = curPos; // we will temporarily move the piece to the new position
-        Pair<Piece, Boolean> tuple = this.move(newPos);
-        Piece captured = tuple.getLeft();
-        Boolean enPassMove = tuple.getRight();
-        
-        boolean n = game.inCheck(game.getCurrentTurn()); // check if the side is in check
-        newPos.getPiece().moveBack(oldPos, captured, enPassMove); // move the pieces back to their original positions
-        
-        return !n;
+        return game.findMove(curPos, newPos, Bitboard.QUEEN) != Move.NONE;
     }
     
     /**
@@ -61,14 +53,13 @@ public abstract class Piece implements Serializable {
      * @return whether or not the new position results in check for the opposing side
      */
     public boolean givesCheck(Position newPos) {
-        Position oldPos = curPos; // we will temporarily move the piece to the new position
-        Pair<Piece, Boolean> tuple = this.move(newPos);
-        Piece captured = tuple.getLeft();
-        Boolean enPassMove = tuple.getRight();
-        
-        boolean n = game.inCheck(1-game.getCurrentTurn()); // check if other side is in check
-        // move the pieces back to their original positions
-        newPos.getPiece().moveBack(oldPos, captured, enPassMove); 
+        int move = game.findMove(curPos, newPos, Bitboard.QUEEN);
+        if (move == Move.NONE) {
+            return false;
+        }
+        long undo = game.makeMove(move); // we will temporarily play the move on the bitboards
+        boolean n = game.inCheck(game.getCurrentTurn()); // check if other side is in check
+        game.unmakeMove(move, undo);
         
         return n;
     }
@@ -82,18 +73,15 @@ public abstract class Piece implements Serializable {
     public abstract ArrayList<Position> getPossibleMoves();
     
     /**
-     * Returns a list of legal moves for this piece. Converts the format
-     * of the moves to <Position, Position>. I.e. the move (e2, e4) means
-     * move the piece on e2 to e4.
+     * Returns a list of legal moves for this piece, encoded as in {@code Move}.
      * 
      * @return list of moves
      */
-	public ArrayList<Pair<Position,Position>> getLegalMoves() {
-		return (ArrayList<Pair<Position,Position>>) getPossibleMoves()
-				.stream()
-				.filter(x -> isValidMove(x))
-				.map(x -> new Pair<Position,Position>(curPos, x))
-				.collect(Collectors.toList());
+	public int[] getLegalMoves() {
+		int from = Game.squareOf(curPos);
+		return Arrays.stream(game.getLegalMoves(color))
+				.filter(m -> Move.from(m) == from)
+				.toArray();
 	}
 
     /**
@@ -105,19 +93,48 @@ public abstract class Piece implements Serializable {
     public abstract boolean isValidCapture(Position pos);
 
     /**
-     * Returns the heuristic value of the piece
+     * Returns the heuristic value of the piece on its current square
+     * 
+     * @return the value of the piece in centipawns
+     */
+    public abstract int getValue();
+    
+    /**
+     * Returns the value of the piece on its current square once most of the
+     * pieces are gone. Pieces that are worth the same in the endgame keep
+     * this default.
+     * 
+     * @return the endgame value of the piece in centipawns
+     */
+    public int getEndgameValue() {
+        return getValue();
+    }
+
+    /**
+     * Returns the piece type used to index the bitboards in {@code Game}
      * 
-     * @return decimal representing the value of the piece
+     * @return one of the piece type constants in {@code Bitboard}
      */
-    public abstract double getValue();
+    public abstract int getType();
     
     /**
      * Gives a bonus value to pieces on "good" squares,
      * or a punitive value for piece on "bad" squares.
+     * The table is laid out like a diagram of the board from
+     * white's side, rank 8 first, and mirrored for black.
      * 
-     * @return a table of values corresponding to good and bad squares
+     * @param value the value of the piece in centipawns
+     * @param table the bonus for each square in centipawns
+     * @return the value on each square, indexed [color][square]
      */
-    protected abstract double[][] pieceValueTable();
+    protected static int[][] squareValues(int value, int[] table) {
+        int[][] values = new int[2][64];
+        for (int sq = 0; sq < 64; sq++) {
+            values[Game.WHITE][sq] = value + table[(7 - (sq >>> 3)) * 8 + (sq & 7)];
+            values[Game.BLACK][sq] = value + table[sq];
+        }
+        return values;
+    }
     
     /**
      * Gets the current position.
@@ -149,46 +166,50 @@ public abstract class Piece implements Serializable {
         if (curPos.getPiece() instanceof Pawn && ((Pawn) curPos.getPiece()).enPassant(newPos)) {
         	enPassMove = true;
             captured = game.board[curPos.getRow()][newPos.getCol()].getPiece();
-            game.pieces.remove(captured);
             game.board[curPos.getRow()][newPos.getCol()].setPiece(null);
         }
+        
+        //remove the captured piece before its square is taken in the piece list
+        if (captured != null) {
+            game.pieces.remove(Game.squareOf(captured.curPos));
+            game.removed.add(captured);
+        }
+        game.pieces.move(Game.squareOf(curPos), Game.squareOf(newPos));
+        
         curPos.setPiece(null);//sets current postion to null (empty)
         newPos.setPiece(this);
         curPos = newPos;//set the current position as the new position
         nMoves++;//increment the number of moves this piece has taken
         
-        //remove the piece if it exists and is not a King
-        if (captured != null && !(captured instanceof King)) {
-            game.pieces.remove(captured);
-            game.removed.add(captured);
-        }
-        
         return new Pair<Piece,Boolean>(captured, enPassMove);
     }
     
     /**
-     * Move a piece to its previous position
+     * Move a piece to its previous position. Moves must be taken back in the
+     * reverse order they were played, so the captured piece is the last one
+     * in {@code game.removed}.
      *
      * @param oldPos the position to move back to
      */
     public void moveBack(Position oldPos, Piece captured, Boolean wasEnPassant) {
     	Position newPos = curPos;
     	
+    	game.pieces.move(Game.squareOf(newPos), Game.squareOf(oldPos));
     	curPos.setPiece(null);//sets current postion to null (empty)
         curPos = oldPos;//set the current position as the new position
         curPos.setPiece(this);
         nMoves--;//decrement the number of moves this piece has taken
         
-        if (captured != null && !(captured instanceof King)) {
-            game.pieces.add(captured);
-            game.removed.remove(captured);
-        }
-        
     	if(wasEnPassant) {
         	game.board[oldPos.getRow()][newPos.getCol()].setPiece(captured);
         } else if (captured != null) {
         	newPos.setPiece(captured);
         }
+        
+        if (captured != null) {
+            game.pieces.add(captured);
+            game.removed.remove(game.removed.size() - 1);
+        }
     }
     
     /**
@@ -198,37 +219,7 @@ public abstract class Piece implements Serializable {
      * @param moves - the set of moves to add to
      */
     public void addDiagonalMoves(ArrayList<Position> moves) {
-    	int row = curPos.getRow();
-		int col = curPos.getCol();
-		
-		// top left diagonal
-		for (int i = 0; i < Math.min(col, 7-row); i++) {
-			moves.add(game.board[row + i + 1][col - i - 1]);
-			if (game.board[row + i + 1][col - i - 1].isOccupied()) {
-				break;
-			}
-		}
-		// bottom left diagonal
-		for (int i = 0; i < Math.min(col, row); i++) {
-			moves.add(game.board[row - i - 1][col - i - 1]);
-			if (game.board[row - i - 1][col - i - 1].isOccupied()) {
-				break;
-			}
-		}
-		// bottom right diagonal
-		for (int i = 0; i < Math.min(7-col, row); i++) {
-			moves.add(game.board[row - i - 1][col + i + 1]);
-			if (game.board[row - i - 1][col + i + 1].isOccupied()) {
-				break;
-			}
-		} 
-		// top right diagonal
-		for (int i = 0; i < Math.min(7-col, 7-row); i++) {
-			moves.add(game.board[row + i + 1][col + i + 1]);
-			if (game.board[row + i + 1][col + i + 1].isOccupied()) {
-				break;
-			}
-		}
+    	addMoves(Attacks.bishop(Game.squareOf(curPos), game.occupied), moves);
     }
     
     /**
@@ -238,40 +229,20 @@ public abstract class Piece implements Serializable {
      * @param moves - the set of moves to add to
      */
     public void addOrthogonalMoves(ArrayList<Position> moves) {
-    	int row = curPos.getRow();
-		int col = curPos.getCol();
-		
-		// upper file
-		for (int i = row+1; i < 8; i++) {
-			moves.add(game.board[i][col]);
-			if (game.board[i][col].isOccupied()) {
-				break;
-			}
-		}
-		
-		// lower file
-		for (int i = row-1; i >= 0; i--) {
-			moves.add(game.board[i][col]);
-			if (game.board[i][col].isOccupied()) {
-				break;
-			}
-		}
-		
-		// right rank
-		for (int i = col+1; i < 8; i++) {
-			moves.add(game.board[row][i]);
-			if (game.board[row][i].isOccupied()) {
-				break;
-			}
-		}
-		
-		// left rank
-		for (int i = col-1; i >= 0; i--) {
-			moves.add(game.board[row][i]);
-			if (game.board[row][i].isOccupied()) {
-				break;
-			}
-		}
+    	addMoves(Attacks.rook(Game.squareOf(curPos), game.occupied), moves);
+    }
+    
+    /**
+     * Adds the positions of a bitboard
+     * 
+     * @param targets the squares to add
+     * @param moves - the set of moves to add to
+     */
+    private void addMoves(long targets, ArrayList<Position> moves) {
+    	while (targets != 0) {
+    		moves.add(game.positionOf(Long.numberOfTrailingZeros(targets)));
+    		targets &= targets - 1;
+    	}
     }
 
     /**
@@ -309,12 +280,4 @@ public abstract class Piece implements Serializable {
         result += "_" + this.getClass().getSimpleName().toLowerCase() + "70.png";
         return result;
     }
-    
-	protected void reverse(double[][] A) {
-		for(int i = 0; i < 4; i++) {
-			double[] temp = A[i];
-			A[i] = A[7-i];
-			A[7-i] = temp;
-		}
-	}
 }
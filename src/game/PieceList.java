@@ -0,0 +1,115 @@
+package game;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The pieces on the board, in no particular order. Each square remembers
+ * the slot its piece is stored in, so adding, removing and moving a piece
+ * take constant time: a removed piece's slot is filled with the last piece
+ * in the list.
+ *
+ * @author Jurgen Aliaj
+ */
+public final class PieceList implements Iterable<Piece>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Piece[] pieces = new Piece[64];
+    /**
+     * the slot of the piece on each square, -1 if the square is empty
+     */
+    private final int[] slots = new int[64];
+    private int size;
+
+    public PieceList() {
+        Arrays.fill(slots, -1);
+    }
+
+    /**
+     * @return the number of pieces
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i the slot, from 0 to size() - 1
+     * @return the piece in the slot
+     */
+    public Piece get(int i) {
+        return pieces[i];
+    }
+
+    /**
+     * @param p a piece
+     * @return whether the piece is in the list, on the square it stands on
+     */
+    public boolean contains(Piece p) {
+        int slot = slots[Game.squareOf(p.getPosition())];
+        return slot >= 0 && pieces[slot] == p;
+    }
+
+    /**
+     * Adds a piece on the square it stands on, which must be free in the list
+     *
+     * @param p the piece
+     */
+    public void add(Piece p) {
+        pieces[size] = p;
+        slots[Game.squareOf(p.getPosition())] = size++;
+    }
+
+    /**
+     * Removes the piece on a square
+     *
+     * @param sq the square
+     */
+    public void remove(int sq) {
+        int slot = slots[sq];
+        slots[sq] = -1;
+        Piece last = pieces[--size];
+        pieces[size] = null;
+        if (slot != size) {
+            pieces[slot] = last;
+            slots[Game.squareOf(last.getPosition())] = slot;
+        }
+    }
+
+    /**
+     * The list may not be changed while iterating over it
+     */
+    @Override
+    public Iterator<Piece> iterator() {
+        return new Iterator<Piece>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Piece next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return pieces[next++];
+            }
+        };
+    }
+
+    /**
+     * Moves the slot of a piece along with it. The target square must be
+     * free in the list, so remove a captured piece first.
+     *
+     * @param from the square the piece stood on
+     * @param to the square it moves to
+     */
+    public void move(int from, int to) {
+        slots[to] = slots[from];
+        slots[from] = -1;
+    }
+}
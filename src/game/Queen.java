@@ -13,7 +13,20 @@ public class Queen extends Piece {
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
-	private double value = 9;
+	/**
+	 * value in centipawns on each square, indexed [color][square]. Good squares
+	 * get a bonus and bad squares a penalty.
+	 */
+	private static final int[][] VALUES = squareValues(900, new int[] {
+		-20, -10, -10,  -5,  -5, -10, -10, -20,
+		-10,   0,   0,   0,   0,   0,   0, -10,
+		-10,   0,   5,   5,   5,   5,   0, -10,
+		 -5,   0,   5,   5,   5,   5,   0,  -5,
+		  0,   0,   5,   5,   5,   5,   0,  -5,
+		-10,   5,   5,   5,   5,   5,   0, -10,
+		-10,   0,   5,   0,   0,   0,   0, -10,
+		-20, -10, -10,  -5,  -5, -10, -10, -20
+	});
 	
 	/**
      *
@@ -38,43 +51,19 @@ public class Queen extends Piece {
      * Checks that the move does not violate queen rules
      */
     public boolean isValidCapture(Position newPos) {
-        int deltaX = (newPos.getCol() - curPos.getCol()), dirX = 0;
-        int deltaY = (newPos.getRow() - curPos.getRow()), dirY = 0;
-        if (deltaX != 0) {
-            dirX = deltaX / Math.abs(deltaX); // convert to unit vector to obtain direction
-        }
-        if (deltaY != 0) {
-            dirY = deltaY / Math.abs(deltaY); // {...}
-        }
-        return newPos != curPos // must not click the same position
-                && ((deltaX == 0 || deltaY == 0) || Math.abs(deltaX) == Math.abs(deltaY)) // move up/down or left/right or diagonally
-                && game.nothingInBetween(newPos, game.board[curPos.getRow() + dirY][curPos.getCol() + dirX], dirX, dirY) // no jumping
+        return (Attacks.queen(Game.squareOf(curPos), game.occupied) & Game.bitOf(newPos)) != 0 // straight or diagonally, no jumping
                 && (!newPos.isOccupied()
                 || newPos.getPiece().getColor() != getColor()); // must not attack its own side
     }
 
-	public double getValue() {
-		return value + 0.1*pieceValueTable()[curPos.getRow()][curPos.getCol()];
+	@Override
+	public int getType() {
+		return Bitboard.QUEEN;
 	}
-	
+
 	@Override
-	protected double[][] pieceValueTable() {
-		double[][] table = {
-			{ -2.0, -1.0, -1.0, -0.5, -0.5, -1.0, -1.0, -2.0},
-			{ -1.0,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0, -1.0},
-			{ -1.0,  0.0,  0.5,  0.5,  0.5,  0.5,  0.0, -1.0},
-			{ -0.5,  0.0,  0.5,  0.5,  0.5,  0.5,  0.0, -0.5},
-			{  0.0,  0.0,  0.5,  0.5,  0.5,  0.5,  0.0, -0.5},
-			{ -1.0,  0.5,  0.5,  0.5,  0.5,  0.5,  0.0, -1.0},
-			{ -1.0,  0.0,  0.5,  0.0,  0.0,  0.0,  0.0, -1.0},
-			{ -2.0, -1.0, -1.0, -0.5, -0.5, -1.0, -1.0, -2.0}
-	    };
-		if (color == Game.WHITE) {
-			return table;
-		} else {
-			reverse(table);
-			return table;
-		}
+	public int getValue() {
+		return VALUES[color][Game.squareOf(curPos)];
 	}
 
 	@Override
@@ -13,7 +13,20 @@ public class Rook extends Piece {
 	 * 
 	 */
 	private static final long serialVersionUID = 1L;
-	private double value = 5;
+	/**
+	 * value in centipawns on each square, indexed [color][square]. Good squares
+	 * get a bonus and bad squares a penalty.
+	 */
+	private static final int[][] VALUES = squareValues(500, new int[] {
+		  0,   0,   0,   0,   0,   0,   0,   0,
+		  5,  10,  10,  10,  10,  10,  10,   5,
+		 -5,   0,   0,   0,   0,   0,   0,  -5,
+		 -5,   0,   0,   0,   0,   0,   0,  -5,
+		 -5,   0,   0,   0,   0,   0,   0,  -5,
+		 -5,   0,   0,   0,   0,   0,   0,  -5,
+		 -5,   0,   0,   0,   0,   0,   0,  -5,
+		  0,   0,   0,   5,   5,   0,   0,   0
+	});
 	
 	/**
      *
@@ -38,43 +51,19 @@ public class Rook extends Piece {
      * Checks that the move does not violate rook rules
      */
     public boolean isValidCapture(Position newPos) {
-        int deltaX = (newPos.getCol() - curPos.getCol());
-        int deltaY = (newPos.getRow() - curPos.getRow());
-        if (deltaX != 0) {
-            deltaX = deltaX / Math.abs(deltaX); // convert to unit vector to obtain direction
-        }
-        if (deltaY != 0) {
-            deltaY = deltaY / Math.abs(deltaY); // {...}
-        }
-        return curPos != newPos // must not click the same position
-                && (deltaX == 0 || deltaY == 0) // can move up/down or left/right
-                && game.nothingInBetween(newPos, game.board[curPos.getRow() + deltaY][curPos.getCol() + deltaX], deltaX, deltaY) // no jumping
+        return (Attacks.rook(Game.squareOf(curPos), game.occupied) & Game.bitOf(newPos)) != 0 // up/down or left/right, no jumping
                 && (!newPos.isOccupied()
                 || newPos.getPiece().getColor() != getColor()); // must not attak its own side
     }
 
-	public double getValue() {
-		return value + 0.1*pieceValueTable()[curPos.getRow()][curPos.getCol()];
+	@Override
+	public int getType() {
+		return Bitboard.ROOK;
 	}
-	
+
 	@Override
-	protected double[][] pieceValueTable() {
-		double[][] table = {
-            {  0.0,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0},
-            {  0.5,  1.0,  1.0,  1.0,  1.0,  1.0,  1.0,  0.5},
-            { -0.5,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0, -0.5},
-            { -0.5,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0, -0.5},
-            { -0.5,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0, -0.5},
-            { -0.5,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0, -0.5},
-            { -0.5,  0.0,  0.0,  0.0,  0.0,  0.0,  0.0, -0.5},
-            {  0.0,   0.0, 0.0,  0.5,  0.5,  0.0,  0.0,  0.0}
-        };
-		if (color == Game.WHITE) {
-			return table;
-		} else {
-			reverse(table);
-			return table;
-		}
+	public int getValue() {
+		return VALUES[color][Game.squareOf(curPos)];
 	}
 
 	@Override
@@ -0,0 +1,718 @@
+package game;
+
+import java.util.Arrays;
+
+import misc.TreeNode;
+
+/**
+ * Alpha-beta search of a {@code Game}, written as negamax: every score is from
+ * the point of view of the side to move at that node. Only the best move, its
+ * score and the principal variation are kept; the searched tree is thrown away
+ * as we go unless {@link #captureTree(int)} asks for a copy of it.
+ *
+ * The search deepens one ply at a time until the {@code TimeManager} runs
+ * out, so there is always a finished iteration to take the move from.
+ *
+ * With more than one thread the search is Lazy SMP: helper threads search
+ * their own copies of the game at the same time, and only share what they
+ * find through the transposition table. The move is always taken from the
+ * main thread, which gets to its depth sooner thanks to the helpers' entries.
+ *
+ * @author Jurgen Aliaj
+ */
+public final class Search {
+
+    /**
+     * deepest line the search can follow
+     */
+    public static final int MAX_PLY = 64;
+
+    /**
+     * score for being checkmated at the root, a mate n plies away scores n
+     * closer to 0 so that the quickest mate is preferred
+     */
+    public static final int MATE = 30000;
+
+    /**
+     * more than any score
+     */
+    public static final int INFINITY = 32000;
+
+    private final Game game;
+    private final TranspositionTable tt;
+
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    private final int[][] killers = new int[MAX_PLY][2];
+    /**
+     * how often each quiet move caused a cutoff, indexed [color][from * 64 + to]
+     */
+    private final int[][] history = new int[2][64 * 64];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private long nodes;
+    private long quiescenceNodes;
+
+    /**
+     * in the quiescence search, captures that cannot bring the score back up
+     * to alpha even with this much positional gain on top are skipped
+     */
+    private static final int DELTA_MARGIN = 200;
+
+    /**
+     * from this depth on, each iteration first searches a window this wide
+     * on either side of the previous score, widening it as often as the
+     * score falls outside
+     */
+    private static final int ASPIRATION_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = 25;
+
+    /*
+     * Selective search, each part can be switched off to measure what it is worth
+     */
+    private boolean nullMovePruning = true;
+    private boolean lateMoveReductions = true;
+    private boolean futilityPruning = true;
+
+    /**
+     * null moves are tried from this depth on
+     */
+    private static final int NULL_MOVE_DEPTH = 3;
+    /**
+     * at or below this game phase null move cutoffs are verified, see Game.phase
+     */
+    private static final int ZUGZWANG_PHASE = 6;
+    /**
+     * the number of moves searched to full depth before the rest are reduced
+     */
+    private static final int LMR_MOVES = 3;
+    /**
+     * the reduction of a late move by remaining depth and move number, grows
+     * with the logarithm of both
+     */
+    private static final int[][] LMR_TABLE = new int[MAX_PLY][64];
+    static {
+        for (int depth = 1; depth < MAX_PLY; depth++) {
+            for (int n = 1; n < 64; n++) {
+                LMR_TABLE[depth][n] = (int) (0.75 + Math.log(depth) * Math.log(n) / 2.25);
+            }
+        }
+    }
+    /**
+     * how far below alpha the static evaluation must be, indexed by
+     * remaining depth, for quiet moves to be pruned
+     */
+    private static final int[] FUTILITY_MARGIN = {0, 150, 300};
+
+    private TimeManager time;
+    private volatile boolean stopped;
+    private int rootMove;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Search[] helpers = new Search[0];
+    private Listener listener;
+
+    private int treeLimit;
+    private int treeSize;
+    private TreeNode<Game> tree;
+
+    /**
+     * @param game the game to search, it is changed during the search and
+     * restored before {@code search} returns
+     */
+    public Search(Game game) {
+        this.game = game;
+        this.tt = game.getTranspositionTable();
+        for (int i = 0; i < MAX_PLY; i++) {
+            pickers[i] = new MovePicker();
+        }
+    }
+
+    /**
+     * Keeps a copy of the searched tree for debugging. Each node holds the
+     * best move and the value from white's point of view, like the old
+     * {@code constructGameTree}. Nodes beyond the cap are searched but not
+     * recorded.
+     *
+     * @param maxNodes the most nodes to record, 0 to turn capturing off
+     */
+    public void captureTree(int maxNodes) {
+        this.treeLimit = maxNodes;
+    }
+
+    /**
+     * @return the tree recorded by the last finished iteration, or null if capturing is off
+     */
+    public TreeNode<Game> getTree() {
+        return tree;
+    }
+
+    /**
+     * @return the number of positions visited by the last search, over all threads
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Asks to be told about each iteration the main thread finishes, e.g. to
+     * report progress
+     *
+     * @param listener the listener, or null for none
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the number of those positions that were visited by the quiescence search
+     */
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    /**
+     * @param threads the number of threads to search with, 1 for a single
+     * threaded search. Defaults to the number of available processors.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param enabled whether to try passing the turn to prove a position is
+     * good enough without searching every move. On by default.
+     */
+    public void setNullMovePruning(boolean enabled) {
+        this.nullMovePruning = enabled;
+    }
+
+    /**
+     * @param enabled whether to search quiet moves late in the move order
+     * less deeply, and only search them fully if they look good. On by default.
+     */
+    public void setLateMoveReductions(boolean enabled) {
+        this.lateMoveReductions = enabled;
+    }
+
+    /**
+     * @param enabled whether to skip quiet moves one or two plies from the
+     * leaves when the evaluation is too far below alpha for them to matter.
+     * On by default.
+     */
+    public void setFutilityPruning(boolean enabled) {
+        this.futilityPruning = enabled;
+    }
+
+    /**
+     * Searches the current position to a fixed depth
+     *
+     * @param depth the number of plies to search
+     * @return the best move, its score and the expected line of play
+     */
+    public Result search(int depth) {
+        return search(depth, TimeManager.infinite());
+    }
+
+    /**
+     * Searches the current position one ply deeper at a time, until the depth
+     * is reached or the time runs out. The first iteration always finishes.
+     *
+     * @param maxDepth the deepest iteration to search
+     * @param time when to stop searching
+     * @return the result of the last finished iteration
+     */
+    public Result search(int maxDepth, TimeManager time) {
+        tt.newSearch();
+        stopped = false;
+
+        helpers = new Search[threads - 1];
+        Thread[] workers = new Thread[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            Game copy = game.copy();
+            copy.setTranspositionTable(tt);
+            final Search helper = new Search(copy);
+            helper.nullMovePruning = nullMovePruning;
+            helper.lateMoveReductions = lateMoveReductions;
+            helper.futilityPruning = futilityPruning;
+            // half of the helpers start one ply deeper, so the threads do not
+            // all search the same iteration at the same time
+            final int firstDepth = 1 + (i & 1);
+            helpers[i] = helper;
+            workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    helper.iterate(firstDepth, MAX_PLY, TimeManager.infinite());
+                }
+            }, "search-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        Result result = iterate(1, maxDepth, time);
+
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i].stopped = true;
+        }
+        for (int i = 0; i < helpers.length; i++) {
+            try {
+                workers[i].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            nodes += helpers[i].nodes;
+            quiescenceNodes += helpers[i].quiescenceNodes;
+        }
+        return result;
+    }
+
+    /**
+     * Iterative deepening on this thread, until the depth is reached, the time
+     * runs out or another thread stops us
+     */
+    private Result iterate(int firstDepth, int maxDepth, TimeManager time) {
+        this.time = time;
+        nodes = 0;
+        quiescenceNodes = 0;
+        rootMove = Move.NONE;
+        for (int[] k : killers) {
+            k[0] = k[1] = Move.NONE;
+        }
+        // older history still says something, but less than what we find now
+        for (int[] h : history) {
+            for (int i = 0; i < h.length; i++) {
+                h[i] /= 8;
+            }
+        }
+        Result result = null;
+        int stableIterations = 0;
+
+        for (int depth = firstDepth; depth <= Math.max(1, Math.min(maxDepth, MAX_PLY)); depth++) {
+            int alpha = -INFINITY;
+            int beta = INFINITY;
+            int delta = ASPIRATION_WINDOW;
+            if (depth >= ASPIRATION_DEPTH && result != null && Math.abs(result.getScore()) < MATE - MAX_PLY) {
+                alpha = result.getScore() - delta;
+                beta = result.getScore() + delta;
+            }
+            int score;
+            TreeNode<Game> root;
+            while (true) {
+                root = treeLimit > 0 ? new TreeNode<Game>(null) : null;
+                treeSize = root == null ? 0 : 1;
+                score = negamax(depth, 0, alpha, beta, root, true);
+                if (stopped || (score > alpha && score < beta)) {
+                    break;
+                }
+                // the score is only a bound, search again with a wider window
+                delta *= 2;
+                if (score <= alpha) {
+                    alpha = Math.max(-INFINITY, score - delta);
+                } else {
+                    beta = Math.min(INFINITY, score + delta);
+                    rootMove = pv[0][0]; // the move that failed high goes first
+                }
+            }
+            if (stopped) {
+                break; // the unfinished iteration is not trusted
+            }
+            tree = root;
+
+            Result next = new Result(score, Arrays.copyOf(pv[0], pvLength[0]), depth);
+            stableIterations = result != null && next.getMove() == result.getMove() ? stableIterations + 1 : 0;
+            result = next;
+            rootMove = result.getMove();
+            if (listener != null) {
+                listener.iterationFinished(result, nodes + helperNodes());
+            }
+
+            // a forced mate does not get any better by searching deeper
+            if (rootMove == Move.NONE || Math.abs(score) >= MATE - MAX_PLY || time.softExpired(stableIterations)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Positions visited so far by the helper threads. They are still
+     * counting, so this is only approximate.
+     */
+    private long helperNodes() {
+        long sum = 0;
+        for (Search helper : helpers) {
+            sum += helper.nodes;
+        }
+        return sum;
+    }
+
+    /**
+     * @param nullAllowed false right after a null move, and in the search
+     * verifying one, so that two null moves are never played in a row
+     */
+    private int negamax(int depth, int ply, int alpha, int beta, TreeNode<Game> node, boolean nullAllowed) {
+        nodes++;
+        pvLength[ply] = ply;
+        if ((nodes & 1023) == 0 && rootMove != Move.NONE && time.hardExpired()) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        int turn = game.getCurrentTurn();
+
+        if (depth <= 0) {
+            nodes--; // counted again by the quiescence search
+            return record(node, Move.NONE, quiescence(ply, alpha, beta));
+        }
+        if (game.isDraw()) {
+            return record(node, Move.NONE, 0);
+        }
+
+        // reuse an earlier search of this position if it went deep enough,
+        // except at the root where we need a move we know is legal
+        long entry = tt.probe(game.key);
+        int hashMove = TranspositionTable.move(entry);
+        if (entry != 0 && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+            int value = fromTableScore(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && value >= beta)
+                    || (bound == TranspositionTable.UPPER && value <= alpha)) {
+                int move = TranspositionTable.move(entry);
+                if (move != Move.NONE) {
+                    pv[ply][ply] = move;
+                    pvLength[ply] = ply + 1;
+                }
+                return record(node, move, value);
+            }
+        }
+        int alphaOrig = alpha;
+
+        // the selective search only prunes where an exact score is not
+        // needed, and never when in check or when a mate is in sight
+        boolean pvNode = beta - alpha > 1;
+        boolean inCheck = game.inCheck(turn);
+        boolean selective = !pvNode && !inCheck && ply > 0
+                && Math.abs(alpha) < MATE - MAX_PLY && Math.abs(beta) < MATE - MAX_PLY;
+        int staticEval = selective ? evaluate() : -INFINITY;
+
+        // null move pruning: if passing the turn still leaves us at or above
+        // beta, a real move almost certainly would too
+        if (selective && nullMovePruning && nullAllowed && depth >= NULL_MOVE_DEPTH && staticEval >= beta
+                && (game.colorBB[turn] & ~(game.pieceBB[turn][Bitboard.PAWN] | game.pieceBB[turn][Bitboard.KING])) != 0) {
+            int r = depth > 6 ? 3 : 2;
+            long undo = game.makeNullMove();
+            int value = -negamax(depth - 1 - r, ply + 1, -beta, -beta + 1, null, false);
+            game.unmakeNullMove(undo);
+            if (stopped) {
+                return 0;
+            }
+            // in the endgame passing may really be best (zugzwang), there
+            // the cutoff has to be confirmed by a real reduced search
+            if (value >= beta && (game.phase > ZUGZWANG_PHASE
+                    || negamax(depth - r, ply, alpha, beta, null, false) >= beta)) {
+                return record(node, Move.NONE, beta);
+            }
+            if (stopped) {
+                return 0;
+            }
+        }
+
+        // futility pruning: quiet moves that cannot bring the score up to alpha
+        boolean futile = selective && futilityPruning && depth <= 2 && staticEval + FUTILITY_MARGIN[depth] <= alpha;
+
+        // the best move of the previous iteration goes first at the root
+        MovePicker picker = pickers[ply];
+        picker.init(game, ply == 0 && rootMove != Move.NONE ? rootMove : hashMove,
+                killers[ply][0], killers[ply][1], history[turn]);
+        int bestMove = Move.NONE;
+        int best = -INFINITY;
+        int legal = 0;
+
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            // moves that may leave our king in check are only verified once played
+            boolean verify = MoveGenerator.needsCheck(game, move);
+            long undo = game.makeMove(move);
+
+            if (verify && game.inCheck(turn)) {
+                game.unmakeMove(move, undo);
+                continue;
+            }
+            legal++;
+
+            boolean quiet = !Move.isCapture(move) && Move.promotion(move) == 0;
+            boolean givesCheck = quiet && (futile || lateMoveReductions) && game.inCheck(1 - turn);
+            if (futile && quiet && !givesCheck && legal > 1) {
+                game.unmakeMove(move, undo);
+                best = Math.max(best, staticEval + FUTILITY_MARGIN[depth]);
+                continue;
+            }
+
+            int score;
+            if (legal == 1) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha, newNode(node), true);
+            } else {
+                // late move reductions: moves ordered this far back rarely
+                // turn out best, so first search them less deeply
+                int r = 0;
+                if (lateMoveReductions && quiet && !inCheck && !givesCheck && depth >= 3 && legal > LMR_MOVES
+                        && move != killers[ply][0] && move != killers[ply][1]) {
+                    r = LMR_TABLE[Math.min(depth, MAX_PLY - 1)][Math.min(legal, 63)];
+                    if (pvNode) {
+                        r--;
+                    }
+                    if (history[turn][Move.from(move) << 6 | Move.to(move)] == 0) {
+                        r++; // never caused a cutoff
+                    }
+                    r = Math.max(0, Math.min(r, depth - 2));
+                }
+
+                // principal variation search: the first move is expected to
+                // be the best, so only check with a null window that the
+                // others are no better, and search again if one is
+                TreeNode<Game> child = newNode(node);
+                score = -negamax(depth - 1 - r, ply + 1, -alpha - 1, -alpha, child, true);
+                if (r > 0 && score > alpha && !stopped) {
+                    score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha, child, true);
+                }
+                if (score > alpha && score < beta && !stopped) {
+                    if (child != null) {
+                        node.getChildren().remove(child);
+                    }
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha, newNode(node), true);
+                }
+            }
+            game.unmakeMove(move, undo);
+            if (stopped) {
+                return 0;
+            }
+
+            if (bestMove == Move.NONE || score > best) {
+                best = score;
+                bestMove = move;
+                pv[ply][ply] = move;
+                System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+            }
+            alpha = Math.max(alpha, best);
+            if (alpha >= beta) {
+                if (quiet) {
+                    addKiller(ply, move);
+                    history[turn][Move.from(move) << 6 | Move.to(move)] += depth * depth;
+                }
+                break;
+            }
+        }
+
+        if (legal == 0) {
+            // no legal moves, check for checkmate or stalemate
+            best = inCheck ? ply - MATE : 0;
+        }
+
+        int bound = best <= alphaOrig ? TranspositionTable.UPPER
+                : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        tt.store(game.key, bestMove, toTableScore(best, ply), depth, bound);
+
+        return record(node, bestMove, best);
+    }
+
+    /**
+     * Searches only captures and promotions, until the position is quiet
+     * enough for the static evaluation to be trusted. The side to move may
+     * also "stand pat" and keep the evaluation instead of capturing. When in
+     * check every move is searched, so mates at the horizon are still seen.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        nodes++;
+        quiescenceNodes++;
+        pvLength[ply] = ply;
+        if ((nodes & 1023) == 0 && rootMove != Move.NONE && time.hardExpired()) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (ply >= MAX_PLY) {
+            return evaluate();
+        }
+        if (game.isDraw()) {
+            return 0;
+        }
+        int turn = game.getCurrentTurn();
+        boolean inCheck = game.inCheck(turn);
+
+        int standPat = -INFINITY;
+        MovePicker picker = pickers[ply];
+        if (inCheck) {
+            picker.init(game, Move.NONE, killers[ply][0], killers[ply][1], history[turn]);
+        } else {
+            standPat = evaluate();
+            if (standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            picker.initTactical(game);
+        }
+        int best = standPat;
+        boolean legal = false;
+
+        int move;
+        while ((move = picker.next()) != Move.NONE) {
+            // delta pruning, this capture will not get us back to alpha
+            if (!inCheck && standPat + MovePicker.materialGain(game, move) + DELTA_MARGIN <= alpha) {
+                continue;
+            }
+            boolean verify = MoveGenerator.needsCheck(game, move);
+            long undo = game.makeMove(move);
+
+            if (verify && game.inCheck(turn)) {
+                game.unmakeMove(move, undo);
+                continue;
+            }
+            legal = true;
+
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            game.unmakeMove(move, undo);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                pv[ply][ply] = move;
+                System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+            }
+            alpha = Math.max(alpha, best);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        if (inCheck && !legal) {
+            return ply - MATE; // checkmate
+        }
+        return best;
+    }
+
+    /**
+     * Remembers a quiet move that caused a cutoff, it will likely do so again
+     * in the positions next to this one
+     */
+    private void addKiller(int ply, int move) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    /**
+     * @return the static evaluation from the side to move's point of view
+     */
+    private int evaluate() {
+        int value = game.evaluation();
+        return game.getCurrentTurn() == Game.WHITE ? value : -value;
+    }
+
+    private TreeNode<Game> newNode(TreeNode<Game> parent) {
+        if (parent == null || treeSize >= treeLimit) {
+            return null;
+        }
+        treeSize++;
+        TreeNode<Game> node = new TreeNode<Game>(null);
+        parent.addChild(node);
+        return node;
+    }
+
+    private int record(TreeNode<Game> node, int move, int score) {
+        if (node != null) {
+            node.setMove(move);
+            node.setValue(game.getCurrentTurn() == Game.WHITE ? score : -score);
+        }
+        return score;
+    }
+
+    /**
+     * Mate scores count plies from the root, but the table is shared between
+     * positions at different plies, so they are stored counting from the
+     * position itself
+     */
+    private static int toTableScore(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        } else if (score <= MAX_PLY - MATE) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        } else if (score <= MAX_PLY - MATE) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Told about each iteration of the main thread as it finishes
+     */
+    public interface Listener {
+
+        /**
+         * @param result the result of the iteration
+         * @param nodes the number of positions visited so far, over all threads
+         */
+        void iterationFinished(Result result, long nodes);
+    }
+
+    /**
+     * The outcome of a search
+     */
+    public static final class Result {
+
+        private final int score;
+        private final int[] pv;
+        private final int depth;
+
+        Result(int score, int[] pv, int depth) {
+            this.score = score;
+            this.pv = pv;
+            this.depth = depth;
+        }
+
+        /**
+         * @return the best move, or Move.NONE if there are no legal moves
+         */
+        public int getMove() {
+            return pv.length > 0 ? pv[0] : Move.NONE;
+        }
+
+        /**
+         * @return the score of the best move in centipawns, from the point of
+         * view of the side to move
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * @return the expected line of play, starting with the best move
+         */
+        public int[] getPrincipalVariation() {
+            return pv.clone();
+        }
+
+        /**
+         * @return the depth of the iteration this result comes from
+         */
+        public int getDepth() {
+            return depth;
+        }
+    }
+}
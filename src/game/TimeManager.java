@@ -0,0 +1,134 @@
+package game;
+
+/**
+ * Decides how long a search may run. The soft limit is checked between
+ * iterations of iterative deepening: once it has passed, another iteration is
+ * unlikely to finish, so we keep the move we have. The hard limit is checked
+ * while searching and aborts the current iteration.
+ *
+ * @author Jurgen Aliaj
+ */
+public final class TimeManager {
+
+    /**
+     * kept in reserve for making the move once the search is stopped
+     */
+    private static final long MARGIN = 20;
+
+    /**
+     * number of moves assumed to be left when the clock has no moves to go
+     */
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    private final long softLimit;
+    private final long hardLimit;
+    /**
+     * whether a stable best move may end the search before the soft limit
+     */
+    private final boolean adaptive;
+    private long startTime;
+    private volatile boolean stopped;
+
+    private TimeManager(long softLimit, long hardLimit, boolean adaptive) {
+        this.softLimit = softLimit;
+        this.hardLimit = hardLimit;
+        this.adaptive = adaptive;
+        start();
+    }
+
+    /**
+     * @return a time manager that never stops the search
+     */
+    public static TimeManager infinite() {
+        return new TimeManager(Long.MAX_VALUE, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Spends up to a fixed time on the move
+     *
+     * @param millis the time for this move in milliseconds
+     * @return the time manager
+     */
+    public static TimeManager moveTime(long millis) {
+        long hard = Math.max(1, millis - MARGIN);
+        return new TimeManager(hard / 2, hard, true);
+    }
+
+    /**
+     * Searches for exactly the given time, as UCI {@code go movetime} asks:
+     * no iteration is skipped because it might not finish, and a stable best
+     * move does not end the search early
+     *
+     * @param millis the time for this move in milliseconds
+     * @return the time manager
+     */
+    public static TimeManager fixedTime(long millis) {
+        long hard = Math.max(1, millis - MARGIN);
+        return new TimeManager(hard, hard, false);
+    }
+
+    /**
+     * Divides the time left on a clock over the moves still to play
+     *
+     * @param remaining the time left on our clock in milliseconds
+     * @param increment the time added to our clock after each move
+     * @param movesToGo moves until the next time control, 0 if none
+     * @return the time manager
+     */
+    public static TimeManager clock(long remaining, long increment, int movesToGo) {
+        if (movesToGo <= 0) {
+            movesToGo = DEFAULT_MOVES_TO_GO;
+        }
+        long available = Math.max(1, remaining - MARGIN);
+        long soft = Math.min(available, available / movesToGo + increment * 3 / 4);
+        long hard = Math.min(available, soft * 4);
+        return new TimeManager(soft, hard, true);
+    }
+
+    /**
+     * Restarts the clock, the constructors already call this
+     */
+    public void start() {
+        startTime = System.currentTimeMillis();
+        stopped = false;
+    }
+
+    /**
+     * Ends the search from another thread, as if the hard limit had passed.
+     * The first iteration still finishes, so there is a move to play.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * @return milliseconds since the search started
+     */
+    public long elapsed() {
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Whether to stop before starting another iteration. Unless the time is
+     * fixed, the longer the best move has stayed the same, the sooner we stop.
+     *
+     * @param stableIterations the number of iterations in a row that ended with the same best move
+     * @return true if the search should stop
+     */
+    public boolean softExpired(int stableIterations) {
+        long limit = softLimit;
+        if (adaptive && stableIterations >= 4) {
+            limit /= 4;
+        } else if (adaptive && stableIterations >= 2) {
+            limit /= 2;
+        }
+        return stopped || elapsed() >= limit;
+    }
+
+    /**
+     * @return true if the search must stop now
+     */
+    public boolean hardExpired() {
+        return stopped || elapsed() >= hardLimit;
+    }
+}
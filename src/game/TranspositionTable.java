@@ -0,0 +1,177 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of search results, indexed by Zobrist key. Entries
+ * live in one preallocated {@code long[]}, two longs per entry: the key xor
+ * the data, and the data itself. A reader only trusts an entry if the two
+ * agree with its key, so several search threads can share the table without
+ * locks; an entry torn by a concurrent write simply reads as a miss.
+ *
+ * The data word holds
+ *
+ * <pre>
+ * bits  0-20  best move (see Move)
+ * bits 21-36  score in centipawns, 16 bit signed
+ * bits 37-44  remaining depth
+ * bits 45-46  bound type, 0 for an empty entry
+ * bits 47-54  generation of the search that stored it
+ * </pre>
+ *
+ * @author Jurgen Aliaj
+ */
+public final class TranspositionTable {
+
+    /*
+     * Bound types
+     */
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+    public static final int EXACT = 3;
+
+    /**
+     * largest score magnitude that can be stored
+     */
+    public static final int MAX_SCORE = Short.MAX_VALUE;
+
+    public static final int DEFAULT_MB = 32;
+
+    /**
+     * How a new result decides whether to overwrite the entry in its slot.
+     * Results for the same position always overwrite.
+     */
+    public enum Replacement {
+        /**
+         * the newest result always wins
+         */
+        ALWAYS,
+        /**
+         * keep the deeper result
+         */
+        DEPTH_PREFERRED,
+        /**
+         * keep the deeper result, unless it is left over from an earlier search
+         */
+        AGED
+    }
+
+    private final long[] table;
+    private final int mask;
+    private Replacement replacement;
+    private volatile int generation;
+
+    /**
+     * Creates a table with the default replacement policy
+     *
+     * @param megabytes the size of the table
+     */
+    public TranspositionTable(int megabytes) {
+        this(megabytes, Replacement.AGED);
+    }
+
+    /**
+     * @param megabytes the size of the table, rounded down to a power of two entries
+     * @param replacement the replacement policy
+     */
+    public TranspositionTable(int megabytes, Replacement replacement) {
+        long entries = Math.max(1L, (long) megabytes << 20) / 16;
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        this.table = new long[2 * size];
+        this.mask = size - 1;
+        this.replacement = replacement;
+    }
+
+    public void setReplacement(Replacement replacement) {
+        this.replacement = replacement;
+    }
+
+    /**
+     * Starts a new search, so that older entries can be recognised as stale
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * @param key the Zobrist key of the position
+     * @return the stored data for the position, or 0 if there is none
+     */
+    public long probe(long key) {
+        int i = 2 * ((int) key & mask);
+        long data = table[i + 1];
+        if ((table[i] ^ data) != key) {
+            return 0L;
+        }
+        return data;
+    }
+
+    /**
+     * Stores the result of searching a position
+     *
+     * @param key the Zobrist key of the position
+     * @param move the best move found, or Move.NONE
+     * @param score the score, clamped to MAX_SCORE
+     * @param depth the remaining depth the position was searched to
+     * @param bound LOWER, UPPER or EXACT
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int i = 2 * ((int) key & mask);
+        long old = table[i + 1];
+        boolean samePosition = (table[i] ^ old) == key;
+        if (!samePosition && old != 0) {
+            switch (replacement) {
+                case DEPTH_PREFERRED:
+                    if (depth < depth(old)) {
+                        return;
+                    }
+                    break;
+                case AGED:
+                    if (depth < depth(old) && generation(old) == generation) {
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (samePosition && move == Move.NONE) {
+            move = move(old); // keep the best move we already had
+        }
+        score = Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+        long data = (move & 0x1FFFFFL)
+                | (score & 0xFFFFL) << 21
+                | (long) Math.min(depth, 0xFF) << 37
+                | (long) bound << 45
+                | (long) generation << 47;
+        table[i] = key ^ data;
+        table[i + 1] = data;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0x1FFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 21);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 37 & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 45 & 3);
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> 47 & 0xFF);
+    }
+}
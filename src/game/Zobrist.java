@@ -0,0 +1,91 @@
+package game;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the xor of the keys
+ * for every piece on its square, the castling rights, the en passant file
+ * and the side to move, so {@code Game} can update it incrementally as
+ * pieces are added, removed and moved.
+ *
+ * @author Jurgen Aliaj
+ */
+public final class Zobrist {
+
+    /**
+     * when set, {@code Game} checks its incrementally updated key against
+     * {@link #compute(Game)} after every move (-Dchess.debugHash=true)
+     */
+    public static boolean debug = Boolean.getBoolean("chess.debugHash");
+
+    static final long[][][] PIECES = new long[2][6][64];
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT = new long[8];
+    static final long SIDE;
+
+    static {
+        Random r = new Random(20200229L); // fixed seed, so keys are the same on every run
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type < 6; type++) {
+                for (int sq = 0; sq < 64; sq++) {
+                    PIECES[color][type][sq] = r.nextLong();
+                }
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = r.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = r.nextLong();
+        }
+        SIDE = r.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Computes the key of a position from scratch
+     *
+     * @param game the position
+     * @return the Zobrist key
+     */
+    public static long compute(Game game) {
+        long key = 0L;
+        for (int color = 0; color < 2; color++) {
+            for (int type = 0; type < 6; type++) {
+                long b = game.pieceBB[color][type];
+                while (b != 0) {
+                    key ^= PIECES[color][type][Long.numberOfTrailingZeros(b)];
+                    b &= b - 1;
+                }
+            }
+        }
+        key ^= CASTLING[game.castling];
+        if (game.epSquare >= 0) {
+            key ^= EN_PASSANT[game.epSquare & 7];
+        }
+        if (game.getCurrentTurn() == Game.BLACK) {
+            key ^= SIDE;
+        }
+        return key;
+    }
+
+    /**
+     * Computes the key of the pawns alone from scratch
+     *
+     * @param game the position
+     * @return the pawn key
+     */
+    public static long computePawnKey(Game game) {
+        long key = 0L;
+        for (int color = 0; color < 2; color++) {
+            long b = game.pieceBB[color][Bitboard.PAWN];
+            while (b != 0) {
+                key ^= PIECES[color][Bitboard.PAWN][Long.numberOfTrailingZeros(b)];
+                b &= b - 1;
+            }
+        }
+        return key;
+    }
+}
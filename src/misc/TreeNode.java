@@ -2,12 +2,12 @@ package misc;
 
 import java.util.ArrayList;
 
-import game.Position;
+import game.Move;
 
 public class TreeNode<T> {
 
-	Double value;
-	Pair<Position,Position> bestMove;
+	int value;
+	int bestMove = Move.NONE;
     T data;
     TreeNode<T> parent;
     ArrayList<TreeNode<T>> children;
@@ -43,19 +43,19 @@ public class TreeNode<T> {
     	this.data = data;
     }
     
-    public Double getValue() {
+    public int getValue() {
     	return this.value;
     }
     
-    public void setValue(Double value) {
+    public void setValue(int value) {
     	this.value = value;
     }
     
-    public Pair<Position,Position> getMove() {
+    public int getMove() {
     	return this.bestMove;
     }
     
-    public void setMove(Pair<Position,Position> move) {
+    public void setMove(int move) {
     	this.bestMove = move;
     }
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package tests;
+
+import java.util.ArrayList;
+
+import game.*;
+
+/**
+ * Counts the leaf nodes of the move tree to a fixed depth (perft) and
+ * compares them with the published counts, to catch move generation and
+ * make/unmake bugs and to time the move generator.
+ *
+ * <pre>
+ * Perft                          run the suite of reference positions
+ * Perft [options] depth [fen]    count one position, the start position by default
+ *
+ *   -divide   print the count below each root move
+ *   -view     play the moves through nextTurn/prevTurn, checking the board
+ *             against the bitboards at every node (much slower)
+ * </pre>
+ *
+ * @author Jurgen Aliaj
+ */
+public class Perft {
+
+	private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	/**
+	 * position, depth and the expected number of leaf nodes
+	 */
+	private static final String[][] SUITE = {
+		{START, "5", "4865609"},
+		{"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "4", "4085603"},
+		{"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "5", "674624"},
+		{"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "4", "422333"},
+		{"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "4", "2103487"},
+		{"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "4", "3894594"},
+		// loading at move 1, when no pawn may count as just moved two squares unless the FEN says so
+		{"rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 1", "4", "666467"},
+		{"4k3/8/5n2/4Pp2/8/8/8/4K3 w - - 0 1", "4", "7000"}
+	};
+
+	private static int[][] buffers = new int[64][MoveGenerator.MAX_MOVES];
+
+	public static void main(String[] args) {
+		boolean divide = false;
+		boolean view = false;
+		ArrayList<String> rest = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.equals("-divide")) {
+				divide = true;
+			} else if (arg.equals("-view")) {
+				view = true;
+			} else {
+				rest.add(arg);
+			}
+		}
+
+		if (rest.isEmpty()) {
+			boolean ok = true;
+			for (String[] test : SUITE) {
+				// walking the board is slow, so the view is checked one ply shallower
+				int depth = Integer.parseInt(test[1]) - (view ? 1 : 0);
+				long expected = view ? -1 : Long.parseLong(test[2]);
+				long nodes = run(new Game(test[0]), depth, false, view);
+				if (expected >= 0 && nodes != expected) {
+					System.out.println("  FAILED, expected " + expected);
+					ok = false;
+				}
+			}
+			System.out.println(ok ? "all passed" : "some positions FAILED");
+		} else {
+			int depth = Integer.parseInt(rest.get(0));
+			String fen = rest.size() > 1 ? String.join(" ", rest.subList(1, rest.size())) : START;
+			run(new Game(fen), depth, divide, view);
+		}
+	}
+
+	/**
+	 * Counts one position and prints the result and speed
+	 */
+	private static long run(Game g, int depth, boolean divide, boolean view) {
+		long time = System.nanoTime();
+		long nodes = 0;
+		if (divide) {
+			for (int move : g.getLegalMoves()) {
+				long n;
+				if (view) {
+					g.nextTurn(move);
+					n = perftView(g, depth - 1);
+					g.prevTurn();
+				} else {
+					long undo = g.makeMove(move);
+					n = perft(g, depth - 1, 1);
+					g.unmakeMove(move, undo);
+				}
+				System.out.println(Move.toString(move) + ": " + n);
+				nodes += n;
+			}
+		} else {
+			nodes = view ? perftView(g, depth) : perft(g, depth, 0);
+		}
+		long millis = Math.max(1, (System.nanoTime() - time) / 1000000);
+		System.out.println("depth " + depth + ": " + nodes + " nodes in " + millis + " ms, "
+				+ nodes * 1000 / millis + " nodes/s");
+		return nodes;
+	}
+
+	/**
+	 * Counts leaf nodes using the move generator and makeMove/unmakeMove
+	 *
+	 * @param g the position
+	 * @param depth the number of plies to go
+	 * @param ply plies from the root, to pick a move buffer
+	 * @return the number of leaf nodes
+	 */
+	public static long perft(Game g, int depth, int ply) {
+		if (depth == 0) {
+			return 1;
+		}
+		int turn = g.getCurrentTurn();
+		int[] moves = buffers[ply];
+		int n = MoveGenerator.generate(g, turn, moves);
+		long nodes = 0;
+		for (int i = 0; i < n; i++) {
+			int move = moves[i];
+			boolean verify = MoveGenerator.needsCheck(g, move);
+			long undo = g.makeMove(move);
+			if (!verify || !g.inCheck(turn)) {
+				nodes += perft(g, depth - 1, ply + 1);
+			}
+			g.unmakeMove(move, undo);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Counts leaf nodes the way the user interface plays moves, through
+	 * getLegalMoves, nextTurn and prevTurn
+	 *
+	 * @param g the position
+	 * @param depth the number of plies to go
+	 * @return the number of leaf nodes
+	 */
+	public static long perftView(Game g, int depth) {
+		checkView(g);
+		if (depth == 0) {
+			return 1;
+		}
+		long nodes = 0;
+		for (int move : g.getLegalMoves()) {
+			g.nextTurn(move);
+			nodes += perftView(g, depth - 1);
+			g.prevTurn();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Makes sure the board and piece list agree with the bitboards
+	 */
+	private static void checkView(Game g) {
+		int count = 0;
+		for (int sq = 0; sq < 64; sq++) {
+			Piece p = g.positionOf(sq).getPiece();
+			int type = p == null ? Game.EMPTY : p.getType();
+			if (type != g.pieceAt[sq] || (p != null && (p.getPosition() != g.positionOf(sq)
+					|| (g.colorBB[p.getColor()] & Bitboard.bit(sq)) == 0 || !g.pieces.contains(p)))) {
+				throw new IllegalStateException("board and bitboards disagree on "
+						+ Move.squareName(sq) + " after " + g.totalTurns + " turns");
+			}
+			if (p != null) {
+				count++;
+			}
+		}
+		if (count != g.pieces.size()) {
+			throw new IllegalStateException("piece list has " + g.pieces.size() + " pieces, the board " + count);
+		}
+	}
+}
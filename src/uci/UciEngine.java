@@ -0,0 +1,367 @@
+package uci;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+
+import game.Game;
+import game.Move;
+import game.PawnHashTable;
+import game.Search;
+import game.TimeManager;
+import game.TranspositionTable;
+
+/**
+ * Plays through the Universal Chess Interface on standard input and output,
+ * so the engine can run without the Swing user interface, e.g. under a match
+ * manager. Supports {@code position}, {@code go} with depth, movetime,
+ * wtime/btime/winc/binc/movestogo and infinite, {@code stop}, the Hash
+ * and Threads options, and switches for each part of the selective search.
+ *
+ * The search runs on its own thread so that {@code stop}, {@code isready}
+ * and {@code quit} are answered while it thinks.
+ *
+ * @author Jurgen Aliaj
+ */
+public final class UciEngine {
+
+    private static final String NAME = "chess-AI";
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+
+    private final PrintStream out;
+    private Game game = new Game();
+    private TranspositionTable tt = new TranspositionTable(TranspositionTable.DEFAULT_MB);
+    private final PawnHashTable pawns = new PawnHashTable(PawnHashTable.DEFAULT_MB);
+    private int threads = 1;
+    private boolean nullMove = true;
+    private boolean lateMoveReductions = true;
+    private boolean futility = true;
+
+    private Thread searchThread;
+    private TimeManager time;
+    /**
+     * set while a {@code go infinite} search waits for {@code stop} before
+     * it may answer with its move
+     */
+    private boolean infinite;
+
+    public UciEngine(PrintStream out) {
+        this.out = out;
+        game.setTranspositionTable(tt);
+        game.setPawnHashTable(pawns);
+    }
+
+    public static void main(String[] args) throws IOException {
+        new UciEngine(System.out).run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+
+    /**
+     * Reads commands until {@code quit} or the end of the input
+     *
+     * @param in the commands, one per line
+     * @throws IOException if the input cannot be read
+     */
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!command(line.trim())) {
+                break;
+            }
+        }
+        stop();
+    }
+
+    /**
+     * Carries out one command
+     *
+     * @param line the command
+     * @return false if the engine should quit
+     */
+    boolean command(String line) {
+        String[] words = line.split("\\s+");
+        switch (words[0]) {
+            case "uci":
+                out.println("id name " + NAME);
+                out.println("id author Jurgen Aliaj");
+                out.println("option name Hash type spin default " + TranspositionTable.DEFAULT_MB
+                        + " min 1 max " + MAX_HASH_MB);
+                out.println("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                out.println("option name NullMove type check default true");
+                out.println("option name LMR type check default true");
+                out.println("option name Futility type check default true");
+                out.println("uciok");
+                break;
+            case "isready":
+                out.println("readyok");
+                break;
+            case "setoption":
+                stop();
+                setOption(words);
+                break;
+            case "ucinewgame":
+                stop();
+                tt.clear();
+                break;
+            case "position":
+                stop();
+                position(words);
+                break;
+            case "go":
+                stop();
+                go(words);
+                break;
+            case "stop":
+                stop();
+                break;
+            case "quit":
+                return false;
+            default:
+                // unknown commands are ignored, as the protocol asks
+        }
+        return true;
+    }
+
+    /**
+     * setoption name &lt;id&gt; value &lt;x&gt;
+     */
+    private void setOption(String[] words) {
+        String name = null;
+        String value = null;
+        for (int i = 1; i < words.length - 1; i++) {
+            if (words[i].equals("name")) {
+                name = words[i + 1];
+            } else if (words[i].equals("value")) {
+                value = words[i + 1];
+            }
+        }
+        if (name == null || value == null) {
+            return;
+        }
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                int mb = Math.max(1, Math.min(MAX_HASH_MB, Integer.parseInt(value)));
+                tt = new TranspositionTable(mb);
+                game.setTranspositionTable(tt);
+            } else if (name.equalsIgnoreCase("Threads")) {
+                threads = Math.max(1, Math.min(MAX_THREADS, Integer.parseInt(value)));
+            } else if (name.equalsIgnoreCase("NullMove")) {
+                nullMove = Boolean.parseBoolean(value);
+            } else if (name.equalsIgnoreCase("LMR")) {
+                lateMoveReductions = Boolean.parseBoolean(value);
+            } else if (name.equalsIgnoreCase("Futility")) {
+                futility = Boolean.parseBoolean(value);
+            }
+        } catch (NumberFormatException e) {
+            out.println("info string bad value for " + name + ": " + value);
+        }
+    }
+
+    /**
+     * position [startpos | fen &lt;fen&gt;] [moves &lt;move&gt; ...]
+     *
+     * The moves are played on a new game, which only replaces the current
+     * one if the FEN and every move are legal.
+     */
+    private void position(String[] words) {
+        int i = 1;
+        Game g;
+        try {
+            if (words.length > 1 && words[1].equals("fen")) {
+                StringBuilder fen = new StringBuilder();
+                for (i = 2; i < words.length && !words[i].equals("moves"); i++) {
+                    fen.append(words[i]).append(' ');
+                }
+                g = new Game(fen.toString());
+            } else {
+                g = new Game();
+                i = 2;
+            }
+        } catch (IllegalArgumentException e) {
+            out.println("info string " + e.getMessage());
+            return;
+        }
+        if (i < words.length && words[i].equals("moves")) {
+            for (i++; i < words.length; i++) {
+                int move = parseMove(g, words[i]);
+                if (move == Move.NONE) {
+                    // keep the previous position rather than search one the GUI never sent
+                    out.println("info string illegal move " + words[i] + ", position ignored");
+                    return;
+                }
+                // played through the board as well, searching with more than
+                // one thread copies the game from it
+                g.nextTurn(move);
+            }
+        }
+        g.setTranspositionTable(tt);
+        g.setPawnHashTable(pawns);
+        game = g;
+    }
+
+    /**
+     * @return the legal move written in coordinate notation, or Move.NONE
+     */
+    private static int parseMove(Game g, String name) {
+        for (int move : g.getLegalMoves()) {
+            if (Move.toString(move).equals(name)) {
+                return move;
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * go [depth &lt;n&gt;] [movetime &lt;ms&gt;] [wtime &lt;ms&gt;] [btime &lt;ms&gt;]
+     * [winc &lt;ms&gt;] [binc &lt;ms&gt;] [movestogo &lt;n&gt;] [infinite]
+     */
+    private void go(String[] words) {
+        int depth = Search.MAX_PLY;
+        long moveTime = -1;
+        long[] clock = {-1, -1};
+        long[] increment = {0, 0};
+        int movesToGo = 0;
+        boolean forever = false;
+        try {
+            for (int i = 1; i < words.length; i++) {
+                boolean hasValue = i + 1 < words.length;
+                switch (words[i]) {
+                    case "depth":
+                        depth = hasValue ? Integer.parseInt(words[++i]) : depth;
+                        break;
+                    case "movetime":
+                        moveTime = hasValue ? Long.parseLong(words[++i]) : moveTime;
+                        break;
+                    case "wtime":
+                        clock[Game.WHITE] = hasValue ? Long.parseLong(words[++i]) : -1;
+                        break;
+                    case "btime":
+                        clock[Game.BLACK] = hasValue ? Long.parseLong(words[++i]) : -1;
+                        break;
+                    case "winc":
+                        increment[Game.WHITE] = hasValue ? Long.parseLong(words[++i]) : 0;
+                        break;
+                    case "binc":
+                        increment[Game.BLACK] = hasValue ? Long.parseLong(words[++i]) : 0;
+                        break;
+                    case "movestogo":
+                        movesToGo = hasValue ? Integer.parseInt(words[++i]) : 0;
+                        break;
+                    case "infinite":
+                        forever = true;
+                        break;
+                    default:
+                        // ponder, nodes, mate and searchmoves are not supported
+                }
+            }
+        } catch (NumberFormatException e) {
+            out.println("info string bad go command");
+        }
+
+        int us = game.getCurrentTurn();
+        if (forever) {
+            time = TimeManager.infinite();
+        } else if (moveTime >= 0) {
+            time = TimeManager.fixedTime(moveTime);
+        } else if (clock[us] >= 0) {
+            time = TimeManager.clock(clock[us], increment[us], movesToGo);
+        } else {
+            time = TimeManager.infinite();
+        }
+        infinite = forever;
+
+        final Search search = new Search(game);
+        search.setThreads(threads);
+        search.setNullMovePruning(nullMove);
+        search.setLateMoveReductions(lateMoveReductions);
+        search.setFutilityPruning(futility);
+        final TimeManager limit = time;
+        final int maxDepth = depth;
+        search.setListener(new Search.Listener() {
+            @Override
+            public void iterationFinished(Search.Result result, long nodes) {
+                out.println(info(result, nodes, limit.elapsed()));
+            }
+        });
+        searchThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Search.Result result = search.search(maxDepth, limit);
+                waitForStop();
+                out.println(bestMove(result));
+            }
+        }, "search");
+        searchThread.start();
+    }
+
+    /**
+     * A {@code go infinite} search may not answer before it is stopped, even
+     * if it has nothing left to search
+     */
+    private synchronized void waitForStop() {
+        while (infinite) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops the running search, if any, and waits for it to print its move
+     */
+    private void stop() {
+        if (searchThread == null) {
+            return;
+        }
+        time.stop();
+        synchronized (this) {
+            infinite = false;
+            notifyAll();
+        }
+        try {
+            searchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+    }
+
+    /**
+     * @return the info line for a finished iteration
+     */
+    static String info(Search.Result result, long nodes, long millis) {
+        StringBuilder line = new StringBuilder("info depth ").append(result.getDepth());
+        int score = result.getScore();
+        if (Math.abs(score) >= Search.MATE - Search.MAX_PLY) {
+            // plies to mate, as moves, negative when we are the ones being mated
+            int plies = Search.MATE - Math.abs(score);
+            line.append(" score mate ").append(score > 0 ? (plies + 1) / 2 : -(plies / 2));
+        } else {
+            line.append(" score cp ").append(score);
+        }
+        line.append(" nodes ").append(nodes);
+        line.append(" nps ").append(nodes * 1000 / Math.max(1, millis));
+        line.append(" time ").append(millis);
+        line.append(" pv");
+        for (int move : result.getPrincipalVariation()) {
+            line.append(' ').append(Move.toString(move));
+        }
+        return line.toString();
+    }
+
+    /**
+     * @return the bestmove line, with the expected reply to ponder on if there is one
+     */
+    static String bestMove(Search.Result result) {
+        if (result == null) {
+            return "bestmove 0000";
+        }
+        int[] pv = result.getPrincipalVariation();
+        String line = "bestmove " + Move.toString(result.getMove());
+        return pv.length > 1 ? line + " ponder " + Move.toString(pv[1]) : line;
+    }
+}
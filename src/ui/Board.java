@@ -1,13 +1,19 @@
 package ui;
 
+import game.Bitboard;
+import game.Pawn;
+import game.PawnHashTable;
 import game.Position;
-import misc.Pair;
-import misc.TreeNode;
 import game.Game;
+import game.Move;
 import game.Piece;
+import game.Search;
+import game.TimeManager;
 import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.*;
 
@@ -24,7 +30,7 @@ public final class Board extends JPanel implements ActionListener {
 	 */
 	private static final long serialVersionUID = 1L;
 	private int size;
-	private int depth = 5; // search depth for the AI
+	private int moveTime = 3000; // milliseconds the AI may think per move
 	private Game game;
 	private JButton[][] squares;
 	private ImagePanel[][] imgs;
@@ -38,6 +44,10 @@ public final class Board extends JPanel implements ActionListener {
 	private ChessFrame cframe;
 	private Timer timerObj;
 	private ActionListener chessTask;
+	private SwingWorker<Search.Result, String> worker; // the AI's search, while it is thinking
+	private TimeManager aiTime;
+	// pawn hash table for the AI's copies of the game, only used by one search at a time
+	private final PawnHashTable aiPawns = new PawnHashTable(PawnHashTable.DEFAULT_MB);
 
 	/**
 	 * Main Constructor, creates a new Board to be added to another JCompnonent.
@@ -106,12 +116,12 @@ public final class Board extends JPanel implements ActionListener {
 		}
 	}
 	
-	public void setDepth(int depth) {
-		this.depth = depth;
+	public void setMoveTime(int moveTime) {
+		this.moveTime = moveTime;
 	}
 	
-	public int getDepth() {
-		return this.depth;
+	public int getMoveTime() {
+		return this.moveTime;
 	}
 
 	/**
@@ -238,7 +248,8 @@ public final class Board extends JPanel implements ActionListener {
 
 								chessNotation = game.moveString(pieceToMove, positionToMoveTo);
 								// save any piece that might be removed
-								Piece removed = game.nextTurn(pieceToMove, positionToMoveTo).getLeft();
+								Piece removed = game.nextTurn(pieceToMove, positionToMoveTo,
+										askPromotion(pieceToMove, positionToMoveTo));
 
 								// if a piece has been captured
 								if (removed != null) {
@@ -289,68 +300,178 @@ public final class Board extends JPanel implements ActionListener {
 		}
 	}
 
+	/**
+	 * Asks the user which piece to promote to, if the move is a pawn reaching
+	 * the other side of the board
+	 *
+	 * @param piece  the piece to move
+	 * @param newPos the position to move to
+	 * @return the piece type to promote to, see {@code Bitboard}
+	 */
+	private int askPromotion(Piece piece, Position newPos) {
+		if (!(piece instanceof Pawn) || (newPos.getRow() != 7 && newPos.getRow() != 0)) {
+			return Bitboard.QUEEN;
+		}
+		// possible pieces to promote to
+		Object[] possibilities = { "Queen", "Rook", "Bishop", "Knight" };
+		// show an option dialogue of options and save the user's choice
+		String s = (String) JOptionPane.showInputDialog(cframe, "Which piece would you like?", "Pawn Promotion",
+				JOptionPane.PLAIN_MESSAGE, null, possibilities, possibilities[0]);
+		// based on user input set the piece to the selected piece
+		if (possibilities[1].equals(s)) {
+			return Bitboard.ROOK;
+		} else if (possibilities[2].equals(s)) {
+			return Bitboard.BISHOP;
+		} else if (possibilities[3].equals(s)) {
+			return Bitboard.KNIGHT;
+		}
+		return Bitboard.QUEEN;
+	}
+
+	/**
+	 * Starts the AI thinking in the background if it is black's turn. Called
+	 * by the timer, so the search starts again after a new game or position.
+	 */
 	public void runAI() {
-		if (game.getCurrentTurn() == Game.BLACK) {
-			long time = System.currentTimeMillis();
-			TreeNode<Game> root = new TreeNode<Game>(game);
-			TreeNode<Game> tree = game.constructGameTree(root, depth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
-			Pair<Position, Position> move = tree.getMove();
+		if (worker != null || game.getCurrentTurn() != Game.BLACK || game.isUnplayable(Game.BLACK)) {
+			return;
+		}
+		// the search plays moves on its own copy, so the board can be redrawn meanwhile
+		final Game position = game.copy();
+		position.setTranspositionTable(game.getTranspositionTable());
+		position.setPawnHashTable(aiPawns); // not shared with the game on this thread
+		final TimeManager time = TimeManager.moveTime(moveTime);
+		aiTime = time;
+		worker = new SwingWorker<Search.Result, String>() {
+			@Override
+			protected Search.Result doInBackground() {
+				Search search = new Search(position);
+				search.setListener(new Search.Listener() {
+					@Override
+					public void iterationFinished(Search.Result result, long nodes) {
+						publish("depth " + result.getDepth() + ": " + Move.toString(result.getMove()) + " ("
+								+ nodes / 1000 + "k nodes)");
+					}
+				});
+				return search.search(Search.MAX_PLY, time);
+			}
 
-			if (move == null) {
-				return;
+			@Override
+			protected void process(List<String> progress) {
+				if (!isCancelled()) {
+					cframe.setProgressText(progress.get(progress.size() - 1));
+				}
 			}
 
-			Position curPos = move.getLeft();
-			Position nextPos = move.getRight();
+			@Override
+			protected void done() {
+				if (isCancelled()) {
+					return; // the board has been replaced
+				}
+				worker = null;
+				cframe.setProgressText("");
+				try {
+					Search.Result result = get();
+					if (result != null) {
+						playAIMove(result.getMove(), time.elapsed());
+					}
+				} catch (InterruptedException | ExecutionException e) {
+					// starting the search again would only fail again, so the AI
+					// stays off until the board is reset
+					timerObj.stop();
+					aiTime = null;
+					Throwable cause = e.getCause() != null ? e.getCause() : e;
+					cframe.setProgressText("AI stopped: " + cause);
+					JOptionPane.showMessageDialog(cframe, "The AI stopped with an error: " + cause
+							+ "\nReset the board to play again.", "AI", JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		};
+		worker.execute();
+	}
+
+	/**
+	 * Makes the AI play the best move it has found so far
+	 */
+	public void stopAI() {
+		if (worker != null) {
+			aiTime.stop();
+		}
+	}
+
+	/**
+	 * Stops the AI for good when the board is thrown away, its move is not played
+	 */
+	public void close() {
+		timerObj.stop();
+		if (worker != null) {
+			worker.cancel(false);
+			aiTime.stop();
+			worker = null;
+		}
+	}
+
+	/**
+	 * Plays the move the AI has chosen, on the Event Dispatch Thread
+	 *
+	 * @param move   the move
+	 * @param millis how long the AI thought about it
+	 */
+	private void playAIMove(int move, long millis) {
+		if (move == Move.NONE) {
+			return;
+		}
 
-			int i = nextPos.getCol();
-			int j = nextPos.getRow();
+		Position curPos = game.positionOf(Move.from(move));
+		Position nextPos = game.positionOf(Move.to(move));
 
-			Piece toMove = curPos.getPiece();
+		int i = nextPos.getCol();
+		int j = nextPos.getRow();
 
-			String chessNotation = game.moveString(toMove, nextPos);
+		Piece toMove = curPos.getPiece();
 
-			Piece removed = game.nextTurnAutoQueen(toMove, nextPos).getLeft();
+		String chessNotation = game.moveString(toMove, nextPos);
 
-			// if a piece has been captured
-			if (removed != null) {
-				// add the piece to the side
-				cframe.addRemovedPiece(removed);
-				// remove the image from the square
-				squares[i][j].remove(imgs[i][j]);
-			}
-			this.updateBoard(); // update the board
-			cframe.setTurnText(game.getCurrentTurn()); // let the user know who's turn it is
-			// check if the game is over
-			if (game.isUnplayable(game.getCurrentTurn())) {
-				// let the user know who won the game
-				if (game.getCurrentTurn() == Game.BLACK && game.inCheck(Game.BLACK)) {
-					chessNotation = chessNotation.substring(0, chessNotation.length() - 1) + "#";
-					System.out.print(chessNotation);
-					System.out.print(" ");
-					JOptionPane.showMessageDialog(cframe, "Checkmate, white wins!");
-				} else if (game.getCurrentTurn() == Game.WHITE && game.inCheck(Game.WHITE)) {
-					chessNotation = chessNotation.substring(0, chessNotation.length() - 1) + "#";
-					System.out.print(chessNotation);
-					System.out.print(" ");
-					JOptionPane.showMessageDialog(cframe, "Checkmate, black wins!");
-				} else {
-					System.out.print(chessNotation);
-					System.out.print(" ");
-					JOptionPane.showMessageDialog(cframe, "Stalemate, it's a draw!");
-				}
-				cframe.reset(); // resets the game
-			} else if (game.isDraw()) { // if the game is a draw
+		Piece removed = game.nextTurn(move);
+
+		// if a piece has been captured
+		if (removed != null) {
+			// add the piece to the side
+			cframe.addRemovedPiece(removed);
+			// remove the image from the square
+			squares[i][j].remove(imgs[i][j]);
+		}
+		this.updateBoard(); // update the board
+		cframe.setTurnText(game.getCurrentTurn()); // let the user know who's turn it is
+		// check if the game is over
+		if (game.isUnplayable(game.getCurrentTurn())) {
+			// let the user know who won the game
+			if (game.getCurrentTurn() == Game.BLACK && game.inCheck(Game.BLACK)) {
+				chessNotation = chessNotation.substring(0, chessNotation.length() - 1) + "#";
+				System.out.print(chessNotation);
+				System.out.print(" ");
+				JOptionPane.showMessageDialog(cframe, "Checkmate, white wins!");
+			} else if (game.getCurrentTurn() == Game.WHITE && game.inCheck(Game.WHITE)) {
+				chessNotation = chessNotation.substring(0, chessNotation.length() - 1) + "#";
 				System.out.print(chessNotation);
 				System.out.print(" ");
-				JOptionPane.showMessageDialog(cframe, "Draw by insufficient material.");
-				cframe.reset();
+				JOptionPane.showMessageDialog(cframe, "Checkmate, black wins!");
 			} else {
 				System.out.print(chessNotation);
 				System.out.print(" ");
+				JOptionPane.showMessageDialog(cframe, "Stalemate, it's a draw!");
 			}
-			System.out.println(System.currentTimeMillis() - time);
+			cframe.reset(); // resets the game
+		} else if (game.isDraw()) { // if the game is a draw
+			System.out.print(chessNotation);
+			System.out.print(" ");
+			JOptionPane.showMessageDialog(cframe, "Draw by insufficient material.");
+			cframe.reset();
+		} else {
+			System.out.print(chessNotation);
+			System.out.print(" ");
 		}
+		System.out.println(millis);
 	}
 
 	/**
@@ -31,6 +31,7 @@ public final class ChessFrame extends JFrame implements WindowListener {
     protected Game game;
     protected JLabel currentTurnLbl;
     protected JLabel checkLbl;
+    protected JLabel progressLbl;
     protected JLabel[] letterLbls;
     protected JLabel[] numLbls;
     protected JLabel removedPieceLbl;
@@ -54,6 +55,9 @@ public final class ChessFrame extends JFrame implements WindowListener {
         setSize(WIDTH, HEIGHT);
         //initializes the gui components
         game = initGame(g);//initialize the game
+        progressLbl = new JLabel("");
+        progressLbl.setFont(new Font("Calibri", Font.PLAIN, 16));
+        progressLbl.setForeground(lightColor);
         gameBoard = new Board(SQUARE_SIZE, game, this);
         currentTurnLbl = new JLabel("");
         checkLbl = new JLabel("");
@@ -101,11 +105,13 @@ public final class ChessFrame extends JFrame implements WindowListener {
         add(gameBoard);
         add(checkLbl);
         add(currentTurnLbl);
+        add(progressLbl);
         add(removedPieceLbl);
         //set the bounds of the components
         gameBoard.setBounds(LETTER_NUM_WIDTH, 0, SQUARE_SIZE * 8, SQUARE_SIZE * 8);
         checkLbl.setBounds(754, -21, 200, 100);
         currentTurnLbl.setBounds(705, 10, 250, 100);
+        progressLbl.setBounds(705, 70, 290, 25);
         removedPieceLbl.setBounds(600, 100, 700, 700);
         //set any removed pieces to be displayed
         for (int i = 0; i < game.removed.size(); i++) {
@@ -123,9 +129,20 @@ public final class ChessFrame extends JFrame implements WindowListener {
      * Resets the gui components
      */
     public void reset() {
-        game = new Game();//new game
+        reset(new Game());//new game
+    }
+
+    /**
+     * Resets the gui components to play a game from a given position
+     *
+     * @param g the game to play
+     */
+    public void reset(Game g) {
+        game = g;
         this.setTurnText(game.getCurrentTurn());
-        //remove gameboard an replace with new
+        setProgressText("");
+        //stop the old board's AI, remove gameboard an replace with new
+        gameBoard.close();
         remove(gameBoard);
         gameBoard = new Board(SQUARE_SIZE, game, this);
         add(gameBoard);
@@ -175,6 +192,15 @@ public final class ChessFrame extends JFrame implements WindowListener {
         }
     }
     
+    /**
+     * Shows how far the AI has got with its search
+     *
+     * @param text the progress, or an empty string
+     */
+    public void setProgressText(String text) {
+        progressLbl.setText(text);
+    }
+
     /**
      * Initializes the game via the serialization process, if the {@code Game}
      * cannot be loaded, it returns a new {@code Game}.
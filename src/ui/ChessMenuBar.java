@@ -8,6 +8,9 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+
+import game.Game;
+
 import javax.swing.JButton;
 import javax.swing.JColorChooser;
 import javax.swing.JMenu;
@@ -15,6 +18,7 @@ import javax.swing.JMenuBar;
 import javax.swing.JPanel;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 
 /**
  * This class creates a small menu bar
@@ -32,8 +36,10 @@ public final class ChessMenuBar extends JMenuBar implements ActionListener {
     private JButton lightColorBtn;
     private JButton darkColorBtn;
     private JButton resetBtn;
+    private JButton fenBtn;
+    private JButton stopBtn;
     private JPanel menuWrapper;
-    private JComboBox<Integer> depthMenu;
+    private JComboBox<Integer> timeMenu;
     private ChessFrame frame;
 
     /**
@@ -49,30 +55,36 @@ public final class ChessMenuBar extends JMenuBar implements ActionListener {
         lightColorBtn = new JButton("Choose light color");
         darkColorBtn = new JButton("Choose dark color");
         resetBtn = new JButton("Reset");
+        fenBtn = new JButton("FEN");
+        stopBtn = new JButton("Stop");
         menuWrapper = new JPanel();
-        menuWrapper.add(new JLabel("search depth"));
-        Integer[] choices = {1, 2, 3, 4, 5, 6};
-        depthMenu = new JComboBox<Integer>(choices);
-        depthMenu.setPrototypeDisplayValue(11);
-        depthMenu.setSelectedItem(frame.gameBoard.getDepth());
-        menuWrapper.add(depthMenu);
+        menuWrapper.add(new JLabel("seconds per move"));
+        Integer[] choices = {1, 2, 3, 5, 10, 30};
+        timeMenu = new JComboBox<Integer>(choices);
+        timeMenu.setPrototypeDisplayValue(11);
+        timeMenu.setSelectedItem(frame.gameBoard.getMoveTime() / 1000);
+        menuWrapper.add(timeMenu);
         
         //adds actions to the buttons
         resetBtn.addActionListener(this);
+        fenBtn.addActionListener(this);
+        stopBtn.addActionListener(this);
         lightColorBtn.addActionListener(this);
         darkColorBtn.addActionListener(this);
-        depthMenu.addActionListener(this);
+        timeMenu.addActionListener(this);
         //adds the color buttons to the color menu
         colorMenu.add(lightColorBtn);
         colorMenu.add(darkColorBtn);
         //adds the button and menu to the main bar
         add(resetBtn);
+        add(fenBtn);
+        add(stopBtn);
         add(colorMenu);
         add(menuWrapper);
     }
     
     public void update() {
-    	depthMenu.setSelectedItem(frame.gameBoard.getDepth());
+    	timeMenu.setSelectedItem(frame.gameBoard.getMoveTime() / 1000);
     }
 
     /**
@@ -99,9 +111,22 @@ public final class ChessMenuBar extends JMenuBar implements ActionListener {
             frame.getContentPane().setBackground(c);
         } else if (e.getSource() == resetBtn) {//if the reset button is pressed
             frame.reset();//reset the frame
-        } else if (e.getSource() == depthMenu) {
-        	Integer depth = (Integer)depthMenu.getSelectedItem();
-        	frame.gameBoard.setDepth(depth);
+        } else if (e.getSource() == fenBtn) {//shows the position, and loads it if it is edited
+            String current = frame.game.getFen();
+            String fen = (String) JOptionPane.showInputDialog(frame, "Position (FEN)", "FEN",
+                    JOptionPane.PLAIN_MESSAGE, null, null, current);
+            if (fen != null && !fen.trim().equals(current)) {
+                try {
+                    frame.reset(new Game(fen));
+                } catch (IllegalArgumentException ex) {
+                    JOptionPane.showMessageDialog(frame, ex.getMessage(), "FEN", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        } else if (e.getSource() == stopBtn) {//makes the AI move now
+            frame.gameBoard.stopAI();
+        } else if (e.getSource() == timeMenu) {
+        	Integer seconds = (Integer)timeMenu.getSelectedItem();
+        	frame.gameBoard.setMoveTime(seconds * 1000);
         }
     }
 }